@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * <code>EntityManager</code>の操作を呼び出し元をブロックせずに実行するためのビュー。
+ * 
+ * <p> 各メソッドは操作をエグゼキュータで実行し、操作の結果で完了する<code>CompletionStage</code>を直ちに返します。
+ * <code>EntityManager</code>はスレッドセーフではないため、同じ<code>EntityManager</code>のすべてのビューに依頼された操作は
+ * 依頼された順に1つずつ実行されます。
+ * 操作が保留されている間、アプリケーションは基となる<code>EntityManager</code>を直接使用してはなりません。
+ * 
+ * <p> 操作は呼び出し元とは別のスレッドで実行されます。
+ * そのため、操作は呼び出し元のスレッドに関連付けられたJTAトランザクションに参加せず、
+ * 呼び出し元のスレッドのセキュリティコンテキストなどのコンテキストも引き継ぎません。
+ * リソースローカルのトランザクションは<code>EntityManager</code>に関連付けられているため、操作はそのトランザクション内で実行されます。
+ * 
+ * <p> 返された<code>CompletionStage</code>を{@link java.util.concurrent.CompletableFuture#cancel}でキャンセルすると、
+ * まだ開始されていない操作は実行されません。
+ * 実行中の操作は中断されずに最後まで実行され、その結果は破棄されます。
+ * 永続化プロバイダは実行中の操作のSQLステートメントをキャンセルすることもできます。
+ * 
+ * <p> ビューは{@link EntityManager#getAsyncEntityManager()}、または永続化プロバイダがサポートしている場合は
+ * <code>EntityManager.unwrap(AsyncEntityManager.class)</code>で取得します。
+ * 
+ * @since Java Persistence 2.3
+ */
+public interface AsyncEntityManager {
+
+    /**
+     * 主キーで非同期に見つけます。
+     * @param entityClass  エンティティクラス
+     * @param primaryKey  主キー
+     * @return 見つかったエンティティのインスタンス、存在しない場合はnullで完了するステージ。
+     * {@link EntityManager#find(Class, Object)}が例外を投げる場合はその例外で完了します。
+     */
+    public <T> CompletionStage<T> findAsync(Class<T> entityClass, Object primaryKey);
+
+    /**
+     * 指定されたプロパティを使用して主キーで非同期に見つけます。
+     * @param entityClass  エンティティクラス
+     * @param primaryKey  主キー
+     * @param properties  標準およびベンダー固有のプロパティとヒント
+     * @return 見つかったエンティティのインスタンス、存在しない場合はnullで完了するステージ。
+     * {@link EntityManager#find(Class, Object, Map)}が例外を投げる場合はその例外で完了します。
+     */
+    public <T> CompletionStage<T> findAsync(Class<T> entityClass, Object primaryKey, Map<String, Object> properties);
+
+    /**
+     * SELECTクエリーを非同期に実行します。
+     * @param query  このビューの<code>EntityManager</code>から作成されたクエリー
+     * @return 結果のリストで完了するステージ。
+     * {@link TypedQuery#getResultList}が例外を投げる場合はその例外で完了します。
+     */
+    public <X> CompletionStage<List<X>> getResultListAsync(TypedQuery<X> query);
+
+    /**
+     * SELECTクエリーを非同期に実行します。
+     * @param query  このビューの<code>EntityManager</code>から作成されたクエリー
+     * @return 結果のリストで完了するステージ。
+     * {@link Query#getResultList}が例外を投げる場合はその例外で完了します。
+     */
+    public CompletionStage<List<?>> getResultListAsync(Query query);
+
+    /**
+     * UPDATEまたはDELETEのステートメントを非同期に実行します。
+     * @param query  このビューの<code>EntityManager</code>から作成されたクエリー
+     * @return 更新または削除されたエンティティの数で完了するステージ。
+     * {@link Query#executeUpdate}が例外を投げる場合はその例外で完了します。
+     */
+    public CompletionStage<Integer> executeUpdateAsync(Query query);
+
+    /**
+     * このビューの基となる<code>EntityManager</code>を返します。
+     * @return エンティティマネージャー
+     */
+    public EntityManager getEntityManager();
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import javax.persistence.spi.ThreadPerTaskExecutor;
+
+/**
+ * {@link EntityManager#getAsyncEntityManager}のデフォルトの実装です。
+ * 
+ * <p> 操作はエグゼキュータで1つずつ実行されます。
+ * 同じ<code>EntityManager</code>のビューは1つの{@link OperationQueue}を共有するため、
+ * 複数のビューが作成されても操作が同時に実行されることはありません。
+ * 
+ * <p> 実行中の操作がキャンセルされても、実行しているスレッドには割り込みません。
+ * 割り込みはSQLステートメントをキャンセルせず、NIOを使用するJDBCドライバのコネクションをクローズしてしまうことがあるためです。
+ * キャンセルされた操作は最後まで実行され、結果は破棄されます。
+ */
+final class DefaultAsyncEntityManager implements AsyncEntityManager {
+
+    /**
+     * エグゼキュータが指定されなかった場合に使用されるExecutorです。
+     */
+    static final Executor DEFAULT_EXECUTOR = new ThreadPerTaskExecutor("javax.persistence-async-");
+
+    /**
+     * <code>EntityManager</code>ごとの操作のキューです。
+     * キューは<code>EntityManager</code>を参照しないため、<code>EntityManager</code>がガベージコレクトされると取り除かれます。
+     */
+    private static final Map<EntityManager, OperationQueue> queues =
+            Collections.synchronizedMap(new WeakHashMap<EntityManager, OperationQueue>());
+
+    private final EntityManager em;
+
+    private final Executor executor;
+
+    private final OperationQueue queue;
+
+    DefaultAsyncEntityManager(EntityManager em, Executor executor) {
+        this.em = em;
+        this.executor = executor;
+        synchronized (queues) {
+            OperationQueue queue = queues.get(em);
+            if (queue == null) {
+                queue = new OperationQueue();
+                queues.put(em, queue);
+            }
+            this.queue = queue;
+        }
+    }
+
+    public <T> CompletionStage<T> findAsync(final Class<T> entityClass, final Object primaryKey) {
+        return submit(new Operation<T>() {
+            @Override
+            T execute() {
+                return em.find(entityClass, primaryKey);
+            }
+        });
+    }
+
+    public <T> CompletionStage<T> findAsync(final Class<T> entityClass, final Object primaryKey, final Map<String, Object> properties) {
+        return submit(new Operation<T>() {
+            @Override
+            T execute() {
+                return em.find(entityClass, primaryKey, properties);
+            }
+        });
+    }
+
+    public <X> CompletionStage<List<X>> getResultListAsync(final TypedQuery<X> query) {
+        return submit(new Operation<List<X>>() {
+            @Override
+            List<X> execute() {
+                return query.getResultList();
+            }
+        });
+    }
+
+    public CompletionStage<List<?>> getResultListAsync(final Query query) {
+        return submit(new Operation<List<?>>() {
+            @Override
+            List<?> execute() {
+                return query.getResultList();
+            }
+        });
+    }
+
+    public CompletionStage<Integer> executeUpdateAsync(final Query query) {
+        return submit(new Operation<Integer>() {
+            @Override
+            Integer execute() {
+                return query.executeUpdate();
+            }
+        });
+    }
+
+    public EntityManager getEntityManager() {
+        return em;
+    }
+
+    /**
+     * 操作を前の操作の実行が終わった後に実行されるように依頼します。
+     */
+    private <T> CompletionStage<T> submit(final Operation<T> operation) {
+        queue.append(operation.finished).thenRun(new Runnable() {
+            public void run() {
+                try {
+                    executor.execute(operation);
+                } catch (RuntimeException e) {
+                    // rejected, let the next operation run
+                    operation.completeExceptionally(e);
+                    operation.finished.complete(null);
+                }
+            }
+        });
+        return operation;
+    }
+
+    /**
+     * 1つの<code>EntityManager</code>に依頼された操作の順序です。
+     */
+    private static final class OperationQueue {
+
+        /**
+         * 最後に依頼された操作の実行が終わると完了します。
+         */
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+        /**
+         * 操作を最後に加え、前の操作の実行が終わると完了するフューチャーを返します。
+         */
+        synchronized CompletableFuture<Void> append(CompletableFuture<Void> finished) {
+            CompletableFuture<Void> previous = tail;
+            tail = finished;
+            return previous;
+        }
+    }
+
+    /**
+     * 1つの操作とその結果です。
+     */
+    private static abstract class Operation<T> extends CompletableFuture<T> implements Runnable {
+
+        /**
+         * 操作の実行が終わるか、実行されずに破棄されると完了します。
+         * キャンセルされた操作が実行中でもこのフューチャーは完了しません。
+         */
+        final CompletableFuture<Void> finished = new CompletableFuture<Void>();
+
+        abstract T execute();
+
+        public void run() {
+            try {
+                if (isDone()) {
+                    // cancelled before it started
+                    return;
+                }
+                try {
+                    complete(execute());
+                } catch (Throwable t) {
+                    completeExceptionally(t);
+                }
+            } finally {
+                finished.complete(null);
+            }
+        }
+    }
+}
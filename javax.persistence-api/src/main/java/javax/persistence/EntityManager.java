@@ -15,8 +15,12 @@
  ******************************************************************************/ 
 package javax.persistence;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.List;
+import java.util.concurrent.Executor;
 import javax.persistence.metamodel.Metamodel;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
@@ -71,6 +75,76 @@ public interface EntityManager {
      * @throws TransactionRequiredException トランザクションが存在しないときに<code>PersistenceContextType.TRANSACTION</code>型のコンテナ管理エンティティマネージャーで呼び出された場合
      */    
     public void remove(Object entity);
+
+    /**
+     * 複数のインスタンスを管理し、永続化します。
+     * 
+     * <p> 結果はコレクションの各要素に対して{@link #persist}を順に呼び出した場合と同じです。
+     * 永続化プロバイダは処理をエンティティ型ごとにまとめ、ライフサイクルコールバックの解決をエンティティ型ごとに一度だけ行い、
+     * 挿入を正しい順序でJDBCのバッチにまとめることができます。
+     * 実装はエンティティとカスケードされるエンティティの数にほぼ比例する時間で完了するべきです。
+     * 
+     * <p> 例外が投げられた場合、コレクションのどの要素までが永続化されたかは規定されません。
+     * 
+     * <p> デフォルトの実装は各要素に対して{@link #persist}を呼び出します。
+     * @param entities  エンティティのインスタンスのコレクション
+     * @throws EntityExistsException いずれかのエンティティがすでに存在する場合(<code>persist</code>と同様に、
+     * フラッシュもしくはコミット時に投げられる場合があります。)
+     * @throws IllegalArgumentException いずれかのインスタンスがエンティティでない場合
+     * @throws TransactionRequiredException トランザクションが存在しないときに<code>PersistenceContextType.TRANSACTION</code>型のコンテナ管理エンティティマネージャーで呼び出された場合
+     * @since Java Persistence 2.3
+     */
+    public default void persistAll(Collection<?> entities) {
+        for (Object entity : entities) {
+            persist(entity);
+        }
+    }
+
+    /**
+     * 複数のエンティティの状態を現在の永続化コンテキストにマージします。
+     * 
+     * <p> 結果はコレクションの各要素に対して{@link #merge}を順に呼び出した場合と同じです。
+     * 永続化プロバイダは処理をエンティティ型ごとにまとめ、まだ管理されていないエンティティを少ない回数のクエリで読み込むことができます。
+     * 実装はエンティティとカスケードされるエンティティの数にほぼ比例する時間で完了するべきです。
+     * 
+     * <p> 例外が投げられた場合、コレクションのどの要素までがマージされたかは規定されません。
+     * 
+     * <p> デフォルトの実装は各要素に対して{@link #merge}を呼び出します。
+     * @param entities  エンティティのインスタンスのコレクション
+     * @return 状態がマージされた管理下にあるインスタンスのリスト、コレクションの反復の順序と同じ順序
+     * @throws IllegalArgumentException いずれかのインスタンスがエンティティでないか、削除されたエンティティの場合
+     * @throws TransactionRequiredException トランザクションが存在しないときに<code>PersistenceContextType.TRANSACTION</code>型のコンテナ管理エンティティマネージャーで呼び出された場合
+     * @since Java Persistence 2.3
+     */
+    public default <T> List<T> mergeAll(Collection<T> entities) {
+        List<T> merged = new ArrayList<T>(entities.size());
+        for (T entity : entities) {
+            merged.add(merge(entity));
+        }
+        return merged;
+    }
+
+    /**
+     * 複数のエンティティのインスタンスを削除します。
+     * 
+     * <p> 結果はコレクションの各要素に対して{@link #remove}を順に呼び出した場合と同じです。
+     * 永続化プロバイダは処理をエンティティ型ごとにまとめ、ライフサイクルコールバックの解決をエンティティ型ごとに一度だけ行い、
+     * 削除を外部キーの制約を満たす順序でJDBCのバッチにまとめることができます。
+     * 実装はエンティティとカスケードされるエンティティの数にほぼ比例する時間で完了するべきです。
+     * 
+     * <p> 例外が投げられた場合、コレクションのどの要素までが削除されたかは規定されません。
+     * 
+     * <p> デフォルトの実装は各要素に対して{@link #remove}を呼び出します。
+     * @param entities  エンティティのインスタンスのコレクション
+     * @throws IllegalArgumentException いずれかのインスタンスがエンティティでないか、デタッチ状態のエンティティの場合
+     * @throws TransactionRequiredException トランザクションが存在しないときに<code>PersistenceContextType.TRANSACTION</code>型のコンテナ管理エンティティマネージャーで呼び出された場合
+     * @since Java Persistence 2.3
+     */
+    public default void removeAll(Collection<?> entities) {
+        for (Object entity : entities) {
+            remove(entity);
+        }
+    }
     
     /**
      * 主キーで見つけます。
@@ -90,6 +164,8 @@ public interface EntityManager {
      * 指定されたクラスと主キーのエンティティを検索します。
      * エンティティインスタンスが永続化コンテキストに含まれている場合はそこから戻されます。
      * ベンダー固有のプロパティまたはヒントが認識されない場合、それは暗黙のうちに無視されます。
+     * <code>javax.persistence.readOnly</code>プロパティに<code>true</code>を指定した場合、
+     * 読み込まれたエンティティは読み取り専用になります({@link #setReadOnly(Object, boolean)}を参照してください)。
      * @param entityClass  エンティティクラス
      * @param primaryKey  主キー
      * @param properties  標準およびベンダー固有のプロパティとヒント
@@ -163,6 +239,127 @@ public interface EntityManager {
                       LockModeType lockMode, 
                       Map<String, Object> properties);
 
+    /**
+     * 複数の主キーで見つけます。
+     * 
+     * 指定されたクラスと主キーのエンティティを検索します。
+     * <p> 永続化プロバイダは各エンティティを、まず永続化コンテキストから、次に{@link EntityManagerFactory#getCache}の共有キャッシュから探し、
+     * 残りのエンティティを主キーを分割した<code>IN</code>を使用する少ない回数のクエリで読み込むべきです。
+     * 
+     * <p> 結果は主キーのコレクションの反復の順序と同じ順序で返されます。
+     * 存在しないエンティティに対応する位置にはnullが含まれます。
+     * プロパティの<code>javax.persistence.findAll.omitMissing</code>に<code>true</code>が指定された場合、存在しないエンティティは結果から省かれます。
+     * 
+     * <p> デフォルトの実装は{@link #findAll(Class, Collection, Map)}を空のプロパティで呼び出します。
+     * @param entityClass  エンティティクラス
+     * @param primaryKeys  主キーのコレクション
+     * @return 見つかったエンティティのインスタンスのリスト
+     * @throws IllegalArgumentException 最初の引数がエンティティ型を示さない場合、またはいずれかの主キーがそのエンティティの主キーの有効な型でないかnullの場合
+     * @since Java Persistence 2.3
+     */
+    public default <T> List<T> findAll(Class<T> entityClass, Collection<?> primaryKeys) {
+        return findAll(entityClass, primaryKeys, Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * 指定されたプロパティを使用して複数の主キーで見つけます。
+     * 
+     * 指定されたクラスと主キーのエンティティを検索します。
+     * <p> 永続化プロバイダは各エンティティを、まず永続化コンテキストから、次に{@link EntityManagerFactory#getCache}の共有キャッシュから探し、
+     * 残りのエンティティを主キーを分割した<code>IN</code>を使用する少ない回数のクエリで読み込むべきです。
+     * 
+     * <p> 結果は主キーのコレクションの反復の順序と同じ順序で返されます。
+     * 存在しないエンティティに対応する位置にはnullが含まれます。
+     * プロパティの<code>javax.persistence.findAll.omitMissing</code>に<code>true</code>が指定された場合、存在しないエンティティは結果から省かれます。
+     * ベンダー固有のプロパティまたはヒントが認識されない場合、それは暗黙のうちに無視されます。
+     * 
+     * <p> デフォルトの実装は{@link #findAll(Class, Collection, LockModeType, Map)}を<code>LockModeType.NONE</code>で呼び出します。
+     * @param entityClass  エンティティクラス
+     * @param primaryKeys  主キーのコレクション
+     * @param properties  標準およびベンダー固有のプロパティとヒント、もしくは<code>null</code>
+     * @return 見つかったエンティティのインスタンスのリスト
+     * @throws IllegalArgumentException 最初の引数がエンティティ型を示さない場合、またはいずれかの主キーがそのエンティティの主キーの有効な型でないかnullの場合
+     * @since Java Persistence 2.3
+     */
+    public default <T> List<T> findAll(Class<T> entityClass, Collection<?> primaryKeys,
+                                       Map<String, Object> properties) {
+        return findAll(entityClass, primaryKeys, LockModeType.NONE, properties);
+    }
+
+    /**
+     * 複数の主キーで見つけ、ロックします。
+     * 
+     * 指定されたクラスと主キーのエンティティを検索し、指定されたロックタイプを配慮してロックします。
+     * ロックについての振る舞いは{@link #find(Class, Object, LockModeType)}と同じです。
+     * <p> 永続化プロバイダは各エンティティを、まず永続化コンテキストから、次に{@link EntityManagerFactory#getCache}の共有キャッシュから探し、
+     * 残りのエンティティを主キーを分割した<code>IN</code>を使用する少ない回数のクエリで読み込むべきです。
+     * 
+     * <p> 結果は主キーのコレクションの反復の順序と同じ順序で返されます。
+     * 存在しないエンティティに対応する位置にはnullが含まれます。
+     * プロパティの<code>javax.persistence.findAll.omitMissing</code>に<code>true</code>が指定された場合、存在しないエンティティは結果から省かれます。
+     * 
+     * <p> デフォルトの実装は{@link #findAll(Class, Collection, LockModeType, Map)}を空のプロパティで呼び出します。
+     * @param entityClass  エンティティクラス
+     * @param primaryKeys  主キーのコレクション
+     * @param lockMode  ロックモード
+     * @return 見つかったエンティティのインスタンスのリスト
+     * @throws IllegalArgumentException 最初の引数がエンティティ型を示さない場合、またはいずれかの主キーがそのエンティティの主キーの有効な型でないかnullの場合
+     * @throws TransactionRequiredException トランザクションが存在せず、エンティティマネージャーで呼び出された時に<code>NONE</code>以外のロックモードが指定されている場合、
+     * または現在のトランザクションに結合されていないエンティティマネージャーで呼び出された時に<code>NONE</code>以外のロックモードが指定されている場合
+     * @throws OptimisticLockException 楽観バージョンチェックに失敗した場合
+     * @throws PessimisticLockException 悲観ロックに失敗し、トランザクションがロールバックされた場合
+     * @throws LockTimeoutException 悲観ロックに失敗し、ステートメントのみがロールバックされた場合
+     * @throws PersistenceException サポートされていないロック呼び出しが行われた場合
+     * @since Java Persistence 2.3
+     */
+    public default <T> List<T> findAll(Class<T> entityClass, Collection<?> primaryKeys,
+                                       LockModeType lockMode) {
+        return findAll(entityClass, primaryKeys, lockMode, Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * 指定されたプロパティを使用して複数の主キーで見つけ、ロックします。
+     * 
+     * 指定されたクラスと主キーのエンティティを検索し、指定されたロックタイプを配慮してロックします。
+     * ロックについての振る舞いは{@link #find(Class, Object, LockModeType, Map)}と同じです。
+     * <p> 永続化プロバイダは各エンティティを、まず永続化コンテキストから、次に{@link EntityManagerFactory#getCache}の共有キャッシュから探し、
+     * 残りのエンティティを主キーを分割した<code>IN</code>を使用する少ない回数のクエリで読み込むべきです。
+     * 
+     * <p> 結果は主キーのコレクションの反復の順序と同じ順序で返されます。
+     * 存在しないエンティティに対応する位置にはnullが含まれます。
+     * プロパティの<code>javax.persistence.findAll.omitMissing</code>に<code>true</code>が指定された場合、存在しないエンティティは結果から省かれます。
+     * ベンダー固有のプロパティまたはヒントが認識されない場合、それは暗黙のうちに無視されます。
+     * 
+     * <p> デフォルトの実装は各主キーに対して{@link #find(Class, Object, LockModeType, Map)}を呼び出します。
+     * @param entityClass  エンティティクラス
+     * @param primaryKeys  主キーのコレクション
+     * @param lockMode  ロックモード
+     * @param properties  標準およびベンダー固有のプロパティとヒント、もしくは<code>null</code>
+     * @return 見つかったエンティティのインスタンスのリスト
+     * @throws IllegalArgumentException 最初の引数がエンティティ型を示さない場合、またはいずれかの主キーがそのエンティティの主キーの有効な型でないかnullの場合
+     * @throws TransactionRequiredException トランザクションが存在せず、エンティティマネージャーで呼び出された時に<code>NONE</code>以外のロックモードが指定されている場合、
+     * または現在のトランザクションに結合されていないエンティティマネージャーで呼び出された時に<code>NONE</code>以外のロックモードが指定されている場合
+     * @throws OptimisticLockException 楽観バージョンチェックに失敗した場合
+     * @throws PessimisticLockException 悲観ロックに失敗し、トランザクションがロールバックされた場合
+     * @throws LockTimeoutException 悲観ロックに失敗し、ステートメントのみがロールバックされた場合
+     * @throws PersistenceException サポートされていないロック呼び出しが行われた場合
+     * @since Java Persistence 2.3
+     */
+    public default <T> List<T> findAll(Class<T> entityClass, Collection<?> primaryKeys,
+                                       LockModeType lockMode,
+                                       Map<String, Object> properties) {
+        Object omitMissing = (properties != null) ? properties.get("javax.persistence.findAll.omitMissing") : null;
+        boolean omit = Boolean.TRUE.equals(omitMissing) || "true".equals(omitMissing);
+        List<T> entities = new ArrayList<T>(primaryKeys.size());
+        for (Object primaryKey : primaryKeys) {
+            T entity = find(entityClass, primaryKey, lockMode, properties);
+            if (entity != null || !omit) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
     /**
      * 状態がLAZYフェッチされる可能性のあるインスタンスを取得します。
      * 
@@ -186,6 +383,50 @@ public interface EntityManager {
      */
     public void flush();
 
+    /**
+     * 指定されたエンティティの変更のみを基となるデータベースと同期化させます。
+     * 
+     * <p> 指定されたエンティティと、そこから<code>PERSIST</code>、<code>MERGE</code>または<code>REMOVE</code>でカスケードされるエンティティの
+     * 挿入、更新および削除が書き込まれます。
+     * 書き込まれる変更が外部キーによって他のエンティティの挿入に依存する場合は、それらも書き込まれます。
+     * 永続化コンテキストのその他の変更は書き込まれずに残り、後のフラッシュで書き込まれます。
+     * 
+     * <p> デフォルトの実装は{@link #flush()}を呼び出し、永続化コンテキスト全体を同期化させます。
+     * @param entities  管理下のエンティティのインスタンス
+     * @throws IllegalArgumentException いずれかのインスタンスがエンティティでないか、管理下のエンティティでない場合
+     * @throws TransactionRequiredException トランザクションが存在しない場合、もしくはエンティティマネージャーが現在のトランザクションに参加していない場合
+     * @throws PersistenceException フラッシュに失敗した場合
+     * @since Java Persistence 2.3
+     */
+    public default void flush(Object... entities) {
+        for (Object entity : entities) {
+            if (!contains(entity)) {
+                throw new IllegalArgumentException("Entity is not managed: " + entity);
+            }
+        }
+        flush();
+    }
+
+    /**
+     * 指定されたエンティティ型の変更のみを基となるデータベースと同期化させます。
+     * 
+     * <p> 指定された型とそのサブタイプの管理下のエンティティと、そこから<code>PERSIST</code>、<code>MERGE</code>または<code>REMOVE</code>でカスケードされるエンティティの
+     * 挿入、更新および削除が書き込まれます。
+     * 書き込まれる変更が外部キーによって他のエンティティの挿入に依存する場合は、それらも書き込まれます。
+     * 永続化コンテキストのその他の変更は書き込まれずに残り、後のフラッシュで書き込まれます。
+     * 例えば、ネイティブクエリーが参照するテーブルのエンティティ型のみをフラッシュするために使用できます。
+     * 
+     * <p> デフォルトの実装は{@link #flush()}を呼び出し、永続化コンテキスト全体を同期化させます。
+     * @param entityTypes  エンティティクラス
+     * @throws IllegalArgumentException いずれかのクラスがエンティティ型を示さない場合
+     * @throws TransactionRequiredException トランザクションが存在しない場合、もしくはエンティティマネージャーが現在のトランザクションに参加していない場合
+     * @throws PersistenceException フラッシュに失敗した場合
+     * @since Java Persistence 2.3
+     */
+    public default void flush(Class<?>... entityTypes) {
+        flush();
+    }
+
     /**
      * 永続化コンテキストに含まれるすべてのオブジェクトに適用されるフラッシュモードを設定します。
      * @param flushMode  フラッシュモード
@@ -350,6 +591,83 @@ public interface EntityManager {
      */    
     public boolean contains(Object entity);
 
+    /**
+     * 現在の永続化コンテキストで管理されているエンティティインスタンスの数を返します。
+     * 
+     * <p> エンティティマネージャーの作成時のプロパティ、または永続化ユニットのプロパティで
+     * <code>javax.persistence.context.maxEntities</code>に正の整数が指定されている場合、
+     * 永続化プロバイダは管理されているエンティティの数がその値を超えないように、
+     * 最も長い間使用されていない(LRU)変更の無いエンティティから順にデタッチ状態にします。
+     * 変更されたエンティティ、および挿入や削除が保留されているエンティティはデタッチされないため、
+     * 管理されているエンティティの数は一時的に上限を超えることがあります。
+     * 
+     * <p> デフォルトの実装は{@link PersistenceException}をスローします。
+     * @return 管理されているエンティティインスタンスの数
+     * @throws IllegalStateException エンティティマネージャーがすでにクローズされている場合
+     * @throws PersistenceException 永続化プロバイダがこの呼び出しをサポートしていない場合
+     * @since Java Persistence 2.3
+     */
+    public default int getManagedEntityCount() {
+        throw new PersistenceException("getManagedEntityCount is not supported by " + getClass().getName());
+    }
+
+    /**
+     * 指定された型とそのサブタイプのすべてのエンティティを永続化コンテキストから削除し、デタッチ状態にします。
+     * 
+     * 各エンティティに対して{@link #detach}を呼び出した場合と同様に、フラッシュされてないエンティティへの変更はデータベースへ同期化されず、
+     * <code>DETACH</code>がカスケードされます。
+     * 
+     * <p> デフォルトの実装は{@link PersistenceException}をスローします。
+     * @param entityType  エンティティクラス
+     * @throws IllegalArgumentException クラスがエンティティ型を示さない場合
+     * @throws PersistenceException 永続化プロバイダがこの呼び出しをサポートしていない場合
+     * @since Java Persistence 2.3
+     */
+    public default void detachAll(Class<?> entityType) {
+        throw new PersistenceException("detachAll is not supported by " + getClass().getName());
+    }
+
+    /**
+     * 管理下のエンティティを読み取り専用にするか、読み取り専用の状態を解除します。
+     * 
+     * <p> 永続化プロバイダは読み取り専用のエンティティの状態のスナップショットを保持せず、フラッシュ時のダーティチェックの対象から除外します。
+     * アプリケーションは読み取り専用のエンティティを変更するべきではありません。
+     * 読み取り専用のエンティティへの変更がデータベースに書き込まれるかどうかは規定されません。
+     * 読み取り専用のエンティティの削除は{@link #remove}によって通常通り行われます。
+     * 読み取り専用の状態を解除した場合、その時点のエンティティの状態がスナップショットになります。
+     * 
+     * <p> <code>find</code>メソッドのプロパティ、または{@link Query#setHint}のヒントとして
+     * <code>javax.persistence.readOnly</code>に<code>true</code>を指定すると、読み込まれたエンティティは読み取り専用になります。
+     * 
+     * <p> デフォルトの実装はエンティティが管理下にあることを確認するだけで、何も行いません。
+     * @param entity  管理下のエンティティのインスタンス
+     * @param readOnly  読み取り専用にする場合はtrue、解除する場合はfalse
+     * @throws IllegalArgumentException インスタンスがエンティティでないか、管理下のエンティティでない場合
+     * @since Java Persistence 2.3
+     */
+    public default void setReadOnly(Object entity, boolean readOnly) {
+        if (!contains(entity)) {
+            throw new IllegalArgumentException("Entity is not managed: " + entity);
+        }
+    }
+
+    /**
+     * 管理下のエンティティが読み取り専用かどうかを返します。
+     * 
+     * <p> デフォルトの実装はエンティティが管理下にあることを確認し、falseを返します。
+     * @param entity  管理下のエンティティのインスタンス
+     * @return エンティティが読み取り専用の場合はtrue
+     * @throws IllegalArgumentException インスタンスがエンティティでないか、管理下のエンティティでない場合
+     * @see #setReadOnly(Object, boolean)
+     * @since Java Persistence 2.3
+     */
+    public default boolean isReadOnly(Object entity) {
+        if (!contains(entity)) {
+            throw new IllegalArgumentException("Entity is not managed: " + entity);
+        }
+        return false;
+    }
+
     /**
      * エンティティインスタンスのための現在のロックモードを取得します。
      * @param entity  エンティティインスタンス
@@ -611,6 +929,42 @@ public interface EntityManager {
      */
     public CriteriaBuilder getCriteriaBuilder();
 
+    /**
+     * このエンティティマネージャーの操作を呼び出し元をブロックせずに実行するビューを返します。
+     * 
+     * <p> 操作は仮想スレッドが利用可能な場合は仮想スレッドで、そうでない場合は操作ごとに新しいデーモンスレッドで実行されます。
+     * 
+     * <p> デフォルトの実装は{@link #getAsyncEntityManager(Executor)}をデフォルトのエグゼキュータで呼び出します。
+     * @return 非同期のビュー
+     * @throws IllegalStateException エンティティマネージャーがすでにクローズされている場合
+     * @since Java Persistence 2.3
+     */
+    public default AsyncEntityManager getAsyncEntityManager() {
+        return getAsyncEntityManager(DefaultAsyncEntityManager.DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * このエンティティマネージャーの操作を指定されたエグゼキュータで実行するビューを返します。
+     * 
+     * <p> デフォルトの実装は、このエンティティマネージャーから取得したすべてのビューに依頼された操作を
+     * 依頼された順に1つずつエグゼキュータで実行します。
+     * 実行中の操作はキャンセルされても中断されず、最後まで実行されます。
+     * 永続化プロバイダは実行中のSQLステートメントをキャンセルするためにこのメソッドをオーバーライドすることができます。
+     * @param executor  操作を実行するエグゼキュータ
+     * @return 非同期のビュー
+     * @throws IllegalStateException エンティティマネージャーがすでにクローズされている場合
+     * @since Java Persistence 2.3
+     */
+    public default AsyncEntityManager getAsyncEntityManager(Executor executor) {
+        if (!isOpen()) {
+            throw new IllegalStateException("EntityManager is closed");
+        }
+        if (executor == null) {
+            throw new NullPointerException("executor");
+        }
+        return new DefaultAsyncEntityManager(this, executor);
+    }
+
     /**
      * 永続化ユニットのメタモデルにアクセスするための<code>Metamodel</code>インターフェースのインスタンスを返します。
      * @return Metamodelのインスタンス
@@ -15,6 +15,7 @@
  ******************************************************************************/
 package javax.persistence;
 
+import java.nio.file.Path;
 import java.util.Map;
 import javax.persistence.metamodel.Metamodel;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -45,6 +46,9 @@ public interface EntityManagerFactory {
      * 
      * このメソッドは呼び出すたびに新しい<code>EntityManager</code>インスタンスを返します。
      * 返されたインスタンスでは<code>isOpen</code>メソッドはtrueを返すでしょう。
+     * 
+     * <p> <code>javax.persistence.context.maxEntities</code>プロパティで永続化コンテキストが保持するエンティティの数の上限を指定できます
+     * ({@link EntityManager#getManagedEntityCount}を参照してください)。
      * @param map エンティティマネージャーのためのプロパティ
      * @return エンティティマネージャーのインスタンス
      * @throws IllegalStateException このエンティティマネージャーファクトリーがすでにクローズされている場合
@@ -80,6 +84,21 @@ public interface EntityManagerFactory {
      */
     public EntityManager createEntityManager(SynchronizationType synchronizationType, Map map);
 
+    /**
+     * 永続化コンテキストを持たない新しい<code>StatelessEntityManager</code>を作成します。
+     * 
+     * このメソッドは呼び出すたびに新しい<code>StatelessEntityManager</code>インスタンスを返します。
+     * 
+     * <p> デフォルトの実装は{@link PersistenceException}をスローします。
+     * @return ステートレスなエンティティマネージャーのインスタンス
+     * @throws IllegalStateException このエンティティマネージャーファクトリーがすでにクローズされている場合
+     * @throws PersistenceException 永続化プロバイダがステートレスなエンティティマネージャーをサポートしていない場合
+     * @since Java Persistence 2.3
+     */
+    public default StatelessEntityManager createStatelessEntityManager() {
+        throw new PersistenceException("StatelessEntityManager is not supported by " + getClass().getName());
+    }
+
     /**
      * <code>CriteriaQuery</code>オブジェクトを作るための<code>CriteriaBuilder</code>のインスタンスを返します。
      * @return CriteriaBuilderのインスタンス
@@ -186,4 +205,45 @@ public interface EntityManagerFactory {
      */
     public <T> void addNamedEntityGraph(String graphName, EntityGraph<T> entityGraph);
 
+    /**
+     * 最初のリクエストの前に、遅延して構築される名前付きクエリ、エンティティグラフ、コンバーター、プロキシクラスなどを事前に初期化します。
+     * 
+     * <p> 各項目は{@link WarmUpOptions#getExecutor}で並行して初期化され、このメソッドはすべての項目が完了するまでブロックします。
+     * 項目の初期化の失敗は例外としてスローされず、結果に記録されます。
+     * 
+     * <p> デフォルトの実装は、メタモデルの管理クラスに付与された{@link NamedQuery}、{@link NamedNativeQuery}、
+     * {@link NamedStoredProcedureQuery}、{@link NamedEntityGraph}を新しいエンティティマネージャーから取得し、
+     * {@link Convert}で指定されたコンバーターのクラスを初期化します。
+     * プロキシクラスは初期化されず、{@link WarmUpOptions.Target#PROXIES}は{@link WarmUpResult#getSkippedTargets}に記録されます。
+     * 永続化プロバイダは、<code>orm.xml</code>で定義された項目やプロキシクラスを含めて初期化するためにこのメソッドをオーバーライドできます。
+     * 
+     * @param options 初期化する対象とエグゼキュータ
+     * @return 各項目の所要時間と失敗
+     * @throws IllegalStateException このエンティティマネージャーファクトリーがすでにクローズされている場合
+     * @since Java Persistence 2.3
+     */
+    public default WarmUpResult warmUp(WarmUpOptions options) {
+        return EntityManagerFactoryWarmUp.warmUp(this, options);
+    }
+
+    /**
+     * 永続化プロバイダが構築したメタモデル、マッピングおよび名前付きクエリのスナップショットをファイルに書き込みます。
+     * 
+     * <p> 次回の起動時にプロパティの{@link javax.persistence.spi.MetadataSnapshot#SNAPSHOT_PROPERTY javax.persistence.bootstrap.snapshot}で
+     * このファイルを指定すると、永続化プロバイダはアノテーションや<code>orm.xml</code>を読み込む代わりに
+     * スナップショットからメタデータを再構築します。
+     * 元になったクラスや<code>orm.xml</code>が変更された場合、スナップショットは自動的に無視されます。
+     * 
+     * <p> デフォルトの実装は{@link PersistenceException}をスローします。
+     * スナップショットをサポートする永続化プロバイダは{@link javax.persistence.spi.MetadataSnapshot#write}を使用してこのメソッドを実装します。
+     * 
+     * @param file スナップショットのファイル
+     * @throws IllegalStateException このエンティティマネージャーファクトリーがすでにクローズされている場合
+     * @throws PersistenceException 永続化プロバイダがスナップショットをサポートしていない場合、またはファイルを書き込めなかった場合
+     * @since Java Persistence 2.3
+     */
+    public default void writeSnapshot(Path file) {
+        throw new PersistenceException("Metadata snapshots are not supported by " + getClass().getName());
+    }
+
 }
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import java.lang.reflect.AnnotatedElement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+
+/**
+ * {@link EntityManagerFactory#warmUp}のデフォルトの実装です。
+ * 
+ * <p> メタモデルの管理クラスのアノテーションから名前付きクエリ、名前付きエンティティグラフおよびコンバーターを探し、
+ * 並行してエンティティマネージャーから取得することで初期化します。
+ * 各項目はそれぞれ新しいエンティティマネージャーで初期化されます。
+ * プロキシクラスの作成や<code>orm.xml</code>で定義された項目の初期化は永続化プロバイダに依存するため、このクラスでは行いません。
+ * 指定された{@link WarmUpOptions.Target#PROXIES}は、初期化されなかった対象として結果に記録されます。
+ */
+final class EntityManagerFactoryWarmUp {
+
+    /**
+     * 初期化する1つの項目です。
+     */
+    private static abstract class Task {
+
+        final WarmUpOptions.Target target;
+
+        final String name;
+
+        Task(WarmUpOptions.Target target, String name) {
+            this.target = target;
+            this.name = name;
+        }
+
+        abstract void run() throws Exception;
+
+        WarmUpResult.Item execute() {
+            long start = System.nanoTime();
+            Throwable failure = null;
+            try {
+                run();
+            } catch (Exception e) {
+                failure = e;
+            } catch (LinkageError e) {
+                failure = e;
+            }
+            return new WarmUpResult.Item(target, name, Duration.ofNanos(System.nanoTime() - start), failure);
+        }
+    }
+
+    private EntityManagerFactoryWarmUp() {
+    }
+
+    /**
+     * 指定されたファクトリーの項目を並行して初期化します。
+     * 
+     * @param emf 初期化するファクトリー
+     * @param options 初期化する対象とエグゼキュータ
+     * @return 各項目の所要時間と失敗
+     */
+    static WarmUpResult warmUp(EntityManagerFactory emf, WarmUpOptions options) {
+        long start = System.nanoTime();
+        List<Task> tasks = getTasks(emf, options.getTargets());
+        Executor executor = options.getExecutor();
+        List<CompletableFuture<WarmUpResult.Item>> futures = new ArrayList<CompletableFuture<WarmUpResult.Item>>(tasks.size());
+        for (final Task task : tasks) {
+            futures.add(CompletableFuture.supplyAsync(new Supplier<WarmUpResult.Item>() {
+                @Override
+                public WarmUpResult.Item get() {
+                    return task.execute();
+                }
+            }, executor));
+        }
+        List<WarmUpResult.Item> items = new ArrayList<WarmUpResult.Item>(futures.size());
+        for (CompletableFuture<WarmUpResult.Item> future : futures) {
+            items.add(future.join());
+        }
+        Set<WarmUpOptions.Target> skippedTargets = EnumSet.noneOf(WarmUpOptions.Target.class);
+        if (options.getTargets().contains(WarmUpOptions.Target.PROXIES)) {
+            // proxy classes are created by the provider
+            skippedTargets.add(WarmUpOptions.Target.PROXIES);
+        }
+        return new WarmUpResult(items, skippedTargets, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private static List<Task> getTasks(final EntityManagerFactory emf, Set<WarmUpOptions.Target> targets) {
+        List<Task> tasks = new ArrayList<Task>();
+        Map<String, Class<?>> converters = new LinkedHashMap<String, Class<?>>();
+        for (final ManagedType<?> type : emf.getMetamodel().getManagedTypes()) {
+            Class<?> javaType = type.getJavaType();
+            if (javaType == null) {
+                // dynamic types have no annotations
+                continue;
+            }
+            if (targets.contains(WarmUpOptions.Target.METAMODEL)) {
+                tasks.add(new Task(WarmUpOptions.Target.METAMODEL, javaType.getName()) {
+                    @Override
+                    void run() {
+                        for (Attribute<?, ?> attribute : type.getAttributes()) {
+                            attribute.getJavaType();
+                        }
+                    }
+                });
+            }
+            if (targets.contains(WarmUpOptions.Target.NAMED_QUERIES)) {
+                for (NamedQuery query : javaType.getAnnotationsByType(NamedQuery.class)) {
+                    tasks.add(createNamedQueryTask(emf, query.name()));
+                }
+                for (NamedNativeQuery query : javaType.getAnnotationsByType(NamedNativeQuery.class)) {
+                    tasks.add(createNamedQueryTask(emf, query.name()));
+                }
+                for (final NamedStoredProcedureQuery query : javaType.getAnnotationsByType(NamedStoredProcedureQuery.class)) {
+                    tasks.add(new Task(WarmUpOptions.Target.NAMED_QUERIES, query.name()) {
+                        @Override
+                        void run() {
+                            EntityManager em = emf.createEntityManager();
+                            try {
+                                em.createNamedStoredProcedureQuery(name);
+                            } finally {
+                                em.close();
+                            }
+                        }
+                    });
+                }
+            }
+            if (targets.contains(WarmUpOptions.Target.ENTITY_GRAPHS)) {
+                for (NamedEntityGraph graph : javaType.getAnnotationsByType(NamedEntityGraph.class)) {
+                    String graphName = graph.name().isEmpty() ? getEntityName(javaType) : graph.name();
+                    tasks.add(new Task(WarmUpOptions.Target.ENTITY_GRAPHS, graphName) {
+                        @Override
+                        void run() {
+                            EntityManager em = emf.createEntityManager();
+                            try {
+                                em.getEntityGraph(name);
+                            } finally {
+                                em.close();
+                            }
+                        }
+                    });
+                }
+            }
+            if (targets.contains(WarmUpOptions.Target.CONVERTERS)) {
+                addConverters(javaType, converters);
+                for (AnnotatedElement member : javaType.getDeclaredFields()) {
+                    addConverters(member, converters);
+                }
+                for (AnnotatedElement member : javaType.getDeclaredMethods()) {
+                    addConverters(member, converters);
+                }
+            }
+        }
+        for (final Class<?> converter : converters.values()) {
+            tasks.add(new Task(WarmUpOptions.Target.CONVERTERS, converter.getName()) {
+                @Override
+                void run() throws ClassNotFoundException {
+                    // initialize the class, the provider creates its own instances
+                    Class.forName(converter.getName(), true, converter.getClassLoader());
+                }
+            });
+        }
+        return tasks;
+    }
+
+    private static Task createNamedQueryTask(final EntityManagerFactory emf, String queryName) {
+        return new Task(WarmUpOptions.Target.NAMED_QUERIES, queryName) {
+            @Override
+            void run() {
+                EntityManager em = emf.createEntityManager();
+                try {
+                    em.createNamedQuery(name);
+                } finally {
+                    em.close();
+                }
+            }
+        };
+    }
+
+    private static void addConverters(AnnotatedElement element, Map<String, Class<?>> converters) {
+        for (Convert convert : element.getAnnotationsByType(Convert.class)) {
+            Class<?> converter = convert.converter();
+            if (!convert.disableConversion() && converter != void.class) {
+                converters.put(converter.getName(), converter);
+            }
+        }
+    }
+
+    /**
+     * Returns the entity name, which is also the default name of the
+     * entity graphs of the entity.
+     */
+    private static String getEntityName(Class<?> javaType) {
+        Entity entity = javaType.getAnnotation(Entity.class);
+        return (entity != null && !entity.name().isEmpty()) ? entity.name() : javaType.getSimpleName();
+    }
+}
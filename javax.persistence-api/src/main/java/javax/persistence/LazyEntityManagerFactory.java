@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.spi.PersistenceProviderResolver;
+
+/**
+ * 最初に使用されるまで永続化プロバイダによるEntityManagerFactoryの作成を遅延する{@link EntityManagerFactory}です。
+ * 
+ * @see Persistence#createLazyEntityManagerFactory(String, Map)
+ */
+class LazyEntityManagerFactory implements EntityManagerFactory {
+
+    private final PersistenceProviderResolver resolver;
+
+    private final ClassLoader loader;
+
+    private final String persistenceUnitName;
+
+    private final Map<?, ?> properties;
+
+    /**
+     * 永続化プロバイダによって作成されたファクトリー。作成されるまでは<code>null</code>です。
+     */
+    private volatile EntityManagerFactory delegate;
+
+    /**
+     * 作成に失敗した場合の例外。
+     */
+    private RuntimeException failure;
+
+    /**
+     * 作成される前にクローズされたかどうか。
+     */
+    private boolean closed;
+
+    LazyEntityManagerFactory(PersistenceProviderResolver resolver, ClassLoader loader, String persistenceUnitName, Map<?, ?> properties) {
+        this.resolver = resolver;
+        this.loader = loader;
+        this.persistenceUnitName = persistenceUnitName;
+        // the caller may change the map before the factory is first used
+        this.properties = (properties != null) ? new HashMap<Object, Object>(properties) : null;
+    }
+
+    /**
+     * 永続化プロバイダによって作成されたファクトリーを返します。まだ作成されていない場合は作成します。
+     * 
+     * @return 永続化プロバイダによって作成されたファクトリー
+     * @throws IllegalStateException 作成される前にクローズされた場合
+     */
+    private EntityManagerFactory getDelegate() {
+        EntityManagerFactory emf = delegate;
+        if (emf == null) {
+            synchronized (this) {
+                emf = delegate;
+                if (emf == null) {
+                    if (closed) {
+                        throw new IllegalStateException("EntityManagerFactory for " + persistenceUnitName + " is closed");
+                    }
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    try {
+                        emf = Persistence.createEntityManagerFactory(resolver, loader, persistenceUnitName, properties);
+                    } catch (RuntimeException e) {
+                        failure = e;
+                        throw e;
+                    }
+                    delegate = emf;
+                }
+            }
+        }
+        return emf;
+    }
+
+    public EntityManager createEntityManager() {
+        return getDelegate().createEntityManager();
+    }
+
+    @SuppressWarnings("rawtypes")
+    public EntityManager createEntityManager(Map map) {
+        return getDelegate().createEntityManager(map);
+    }
+
+    public EntityManager createEntityManager(SynchronizationType synchronizationType) {
+        return getDelegate().createEntityManager(synchronizationType);
+    }
+
+    @SuppressWarnings("rawtypes")
+    public EntityManager createEntityManager(SynchronizationType synchronizationType, Map map) {
+        return getDelegate().createEntityManager(synchronizationType, map);
+    }
+
+    public StatelessEntityManager createStatelessEntityManager() {
+        return getDelegate().createStatelessEntityManager();
+    }
+
+    public CriteriaBuilder getCriteriaBuilder() {
+        return getDelegate().getCriteriaBuilder();
+    }
+
+    public Metamodel getMetamodel() {
+        return getDelegate().getMetamodel();
+    }
+
+    public boolean isOpen() {
+        EntityManagerFactory emf = delegate;
+        if (emf == null) {
+            synchronized (this) {
+                emf = delegate;
+                if (emf == null) {
+                    return !closed;
+                }
+            }
+        }
+        return emf.isOpen();
+    }
+
+    public void close() {
+        EntityManagerFactory emf = delegate;
+        if (emf == null) {
+            synchronized (this) {
+                emf = delegate;
+                if (emf == null) {
+                    if (closed) {
+                        throw new IllegalStateException("EntityManagerFactory for " + persistenceUnitName + " is closed");
+                    }
+                    // never bootstrap just to close again
+                    closed = true;
+                    return;
+                }
+            }
+        }
+        emf.close();
+    }
+
+    public Map<String, Object> getProperties() {
+        return getDelegate().getProperties();
+    }
+
+    public Cache getCache() {
+        return getDelegate().getCache();
+    }
+
+    public PersistenceUnitUtil getPersistenceUnitUtil() {
+        return getDelegate().getPersistenceUnitUtil();
+    }
+
+    public void addNamedQuery(String name, Query query) {
+        getDelegate().addNamedQuery(name, query);
+    }
+
+    public <T> T unwrap(Class<T> cls) {
+        return getDelegate().unwrap(cls);
+    }
+
+    public <T> void addNamedEntityGraph(String graphName, EntityGraph<T> entityGraph) {
+        getDelegate().addNamedEntityGraph(graphName, entityGraph);
+    }
+
+    public WarmUpResult warmUp(WarmUpOptions options) {
+        return getDelegate().warmUp(options);
+    }
+
+    public void writeSnapshot(Path file) {
+        getDelegate().writeSnapshot(file);
+    }
+}
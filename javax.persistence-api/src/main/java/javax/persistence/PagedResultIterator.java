@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link Query#getResultStream}のデフォルトの実装で使用される、結果をページごとに取得するイテレーターです。
+ * 
+ * <p> 各ページは{@link Query#setFirstResult}と{@link Query#setMaxResults}で範囲を指定してクエリーを実行することで取得されます。
+ * ページの大きさは{@link Query#getFetchSize}です。
+ * ページの間で結果が飛ばされたり重複したりしないようにクエリーは一意な順序を指定する必要があるため、
+ * {@link Query#setFetchSize}でフェッチサイズが指定された場合にのみページごとに取得します。
+ * 一度に保持される結果は1つのページのみです。
+ * クエリーの最初の位置と最大数は各ページの取得の後に元に戻されるため、ストリームがクローズされなかった場合や
+ * 取得が失敗した場合にもクエリーは変更されません。
+ */
+final class PagedResultIterator<X> implements Iterator<X> {
+
+    /**
+     * ページの大きさを指定するヒントです。
+     */
+    static final String FETCH_SIZE_HINT = "javax.persistence.query.fetchSize";
+
+    /**
+     * ヒントが指定されていない場合のページの大きさです。
+     */
+    static final int DEFAULT_FETCH_SIZE = 100;
+
+    private final Query query;
+
+    private final int fetchSize;
+
+    private final int firstResult;
+
+    private final int maxResults;
+
+    private int position;
+
+    private Iterator<X> page = Collections.<X>emptyList().iterator();
+
+    private boolean lastPage;
+
+    private boolean closed;
+
+    private PagedResultIterator(Query query, int fetchSize) {
+        this.query = query;
+        this.fetchSize = fetchSize;
+        this.firstResult = query.getFirstResult();
+        this.maxResults = query.getMaxResults();
+        this.position = firstResult;
+    }
+
+    /**
+     * クエリーの結果をページごとに取得するストリームを返します。
+     * フェッチサイズのヒントが指定されていない場合は、すべての結果を一度に取得したストリームを返します。
+     * 最初のページは直ちに取得されるため、クエリーの実行の失敗はこのメソッドから投げられます。
+     */
+    @SuppressWarnings("unchecked")
+    static <X> Stream<X> stream(Query query) {
+        if (!query.getHints().containsKey(FETCH_SIZE_HINT)) {
+            // paging needs a unique ordering, which only a caller setting the fetch size has opted into
+            return query.getResultList().stream();
+        }
+        final PagedResultIterator<X> results = new PagedResultIterator<X>(query, query.getFetchSize());
+        results.fetch();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(results, Spliterator.ORDERED), false)
+                .onClose(new Runnable() {
+                    public void run() {
+                        results.close();
+                    }
+                });
+    }
+
+    /**
+     * {@link Query#getFetchSize}のデフォルトの実装です。
+     * クエリーのヒントで指定されたページの大きさを返します。
+     */
+    static int getFetchSize(Query query) {
+        Object value = query.getHints().get(FETCH_SIZE_HINT);
+        int fetchSize = 0;
+        if (value instanceof Number) {
+            fetchSize = ((Number) value).intValue();
+        } else if (value instanceof String) {
+            try {
+                fetchSize = Integer.parseInt((String) value);
+            } catch (NumberFormatException e) {
+                // use the default
+            }
+        }
+        return (fetchSize > 0) ? fetchSize : DEFAULT_FETCH_SIZE;
+    }
+
+    public boolean hasNext() {
+        while (!page.hasNext()) {
+            if (closed || lastPage) {
+                close();
+                return false;
+            }
+            fetch();
+        }
+        return true;
+    }
+
+    public X next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void fetch() {
+        int pageSize = fetchSize;
+        if (maxResults != Integer.MAX_VALUE) {
+            int remaining = maxResults - (position - firstResult);
+            if (remaining <= pageSize) {
+                pageSize = remaining;
+                lastPage = true;
+            }
+        }
+        if (pageSize <= 0) {
+            page = Collections.<X>emptyList().iterator();
+            return;
+        }
+        List<X> results;
+        try {
+            query.setFirstResult(position);
+            query.setMaxResults(pageSize);
+            results = query.getResultList();
+        } finally {
+            restore();
+        }
+        position += results.size();
+        if (results.size() < pageSize) {
+            lastPage = true;
+        }
+        page = results.iterator();
+    }
+
+    /**
+     * Releases the current page.
+     */
+    private void close() {
+        closed = true;
+        page = Collections.<X>emptyList().iterator();
+    }
+
+    /**
+     * Restores the window the query had before the first fetch.
+     */
+    private void restore() {
+        try {
+            query.setFirstResult(firstResult);
+            query.setMaxResults(maxResults);
+        } catch (RuntimeException e) {
+            // the query or its entity manager has been closed
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link TypedQuery#scroll}のデフォルトの実装で使用される、結果をウィンドウごとに取得するカーソルです。
+ * 
+ * <p> 各ウィンドウは{@link Query#setFirstResult}と{@link Query#setMaxResults}で範囲を指定してクエリーを実行することで取得され、
+ * 大きさはクエリーのフェッチサイズです。一度に保持される結果は1つのウィンドウのみです。
+ * 前方に移動する場合は移動先の行から始まるウィンドウを、後方に移動する場合は移動先の行で終わるウィンドウを取得します。
+ * クエリーの最初の位置と最大数は各ウィンドウの取得の後に元に戻されます。
+ */
+final class PagedScrollableResults<X> implements ScrollableResults<X> {
+
+    private final TypedQuery<X> query;
+
+    private final ScrollMode mode;
+
+    private final int fetchSize;
+
+    private final int firstResult;
+
+    private final int maxResults;
+
+    /**
+     * The current position: -1 before the first row, the row number on a
+     * row, or a position at or beyond the number of rows after the last row.
+     */
+    private int row = -1;
+
+    private boolean onRow;
+
+    private int windowStart;
+
+    private List<X> window = Collections.emptyList();
+
+    /**
+     * The number of rows, or -1 until it is known.
+     */
+    private int size = -1;
+
+    /**
+     * The number of rows known to exist.
+     */
+    private int knownRows;
+
+    private boolean closed;
+
+    PagedScrollableResults(TypedQuery<X> query, ScrollMode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("ScrollMode must not be null");
+        }
+        this.query = query;
+        this.mode = mode;
+        this.fetchSize = query.getFetchSize();
+        this.firstResult = query.getFirstResult();
+        this.maxResults = query.getMaxResults();
+    }
+
+    public boolean next() {
+        return scroll(1);
+    }
+
+    public boolean previous() {
+        return scroll(-1);
+    }
+
+    public boolean scroll(int rows) {
+        checkOpen();
+        if (rows < 0) {
+            checkScrollable();
+            if (row >= 0 && !onRow) {
+                // after the last row
+                row = getSize();
+            }
+        }
+        long target = (long) row + rows;
+        return moveTo((int) Math.max(-1, Math.min(Integer.MAX_VALUE, target)));
+    }
+
+    public boolean setRowNumber(int rowNumber) {
+        if (rowNumber < 0) {
+            throw new IllegalArgumentException("Row number must not be negative: " + rowNumber);
+        }
+        checkOpen();
+        if (rowNumber < row) {
+            checkScrollable();
+        }
+        return moveTo(rowNumber);
+    }
+
+    public int getRowNumber() {
+        checkOpen();
+        return onRow ? row : -1;
+    }
+
+    public X get() {
+        checkOpen();
+        if (!onRow) {
+            throw new IllegalStateException("The cursor is not positioned on a row");
+        }
+        return window.get(row - windowStart);
+    }
+
+    public void close() {
+        if (!closed) {
+            closed = true;
+            onRow = false;
+            window = Collections.emptyList();
+        }
+    }
+
+    private boolean moveTo(int target) {
+        boolean backward = target < row;
+        onRow = false;
+        if (target < 0) {
+            row = -1;
+            return false;
+        }
+        if (size >= 0 && target >= size) {
+            row = size;
+            return false;
+        }
+        if (target < windowStart || target >= (long) windowStart + window.size()) {
+            fetch(backward ? Math.max(0, target - fetchSize + 1) : target);
+            if (target >= (long) windowStart + window.size()) {
+                row = (size >= 0) ? size : target;
+                return false;
+            }
+        }
+        row = target;
+        onRow = true;
+        return true;
+    }
+
+    /**
+     * Finds the number of rows by a binary search over windows, knowing
+     * that it is at least {@code knownRows} and at most the current position.
+     */
+    private int getSize() {
+        int low = knownRows;
+        int high = row;
+        while (size < 0) {
+            if (low >= high) {
+                size = low;
+                break;
+            }
+            int start = low + (high - low) / 2;
+            fetch(start);
+            if (window.isEmpty()) {
+                high = start;
+            } else if (size < 0) {
+                low = start + window.size();
+            }
+        }
+        return size;
+    }
+
+    private void fetch(int start) {
+        window = Collections.emptyList();
+        windowStart = start;
+        // keep row numbers within int range
+        int pageSize = Math.min(fetchSize, Integer.MAX_VALUE - start);
+        if (maxResults != Integer.MAX_VALUE) {
+            pageSize = Math.min(pageSize, maxResults - start);
+        }
+        long position = (long) firstResult + start;
+        if (pageSize <= 0 || position > Integer.MAX_VALUE) {
+            // no row can be addressed there
+            return;
+        }
+        List<X> results;
+        try {
+            query.setFirstResult((int) position);
+            query.setMaxResults(pageSize);
+            results = query.getResultList();
+        } finally {
+            restore();
+        }
+        if (!results.isEmpty()) {
+            knownRows = Math.max(knownRows, start + results.size());
+            if (results.size() < pageSize || start + results.size() == maxResults) {
+                size = start + results.size();
+            }
+        } else if (start == 0) {
+            size = 0;
+        }
+        window = results;
+    }
+
+    /**
+     * Restores the window the query had when the cursor was opened.
+     */
+    private void restore() {
+        try {
+            query.setFirstResult(firstResult);
+            query.setMaxResults(maxResults);
+        } catch (RuntimeException e) {
+            // the query or its entity manager has been closed
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The cursor has been closed");
+        }
+    }
+
+    private void checkScrollable() {
+        if (mode == ScrollMode.FORWARD_ONLY) {
+            throw new IllegalStateException("The cursor is FORWARD_ONLY");
+        }
+    }
+}
@@ -15,13 +15,32 @@
  ******************************************************************************/ 
 package javax.persistence;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import javax.persistence.spi.BootstrapEvent;
 import javax.persistence.spi.PersistenceProvider;
 import javax.persistence.spi.PersistenceProviderResolver;
 import javax.persistence.spi.PersistenceProviderResolverHolder;
+import javax.persistence.spi.PersistenceUnitInfo;
+import javax.persistence.spi.PersistenceXmlReader;
+import javax.persistence.spi.ThreadPerTaskExecutor;
 import javax.persistence.spi.LoadState;
 
 /**
@@ -38,6 +57,24 @@ import javax.persistence.spi.LoadState;
  * @since Java Persistence 1.0
  */
 public class Persistence {
+
+    /**
+     * 使用する永続化プロバイダのクラス名を指定するプロパティの名前です。
+     * persistence.xmlの<code>provider</code>要素に相当します。
+     */
+    private static final String PROVIDER_PROPERTY = "javax.persistence.provider";
+
+    /**
+     * コンテキストクラスローダーごとの、永続化ユニット名からそのユニットを最後に受け入れたプロバイダのクラス名への対応表です。
+     * 
+     * <p> 2回目以降のブートストラップでは対応するプロバイダに最初に問い合わせ、
+     * 他のプロバイダによる無駄な永続化ユニットの探索を省きます。
+     * 同じ名前の永続化ユニットを持つ別のアプリケーションに影響しないように、対応表はコンテキストクラスローダーごとに分けられ、
+     * アンデプロイされたアプリケーションのクラスローダーを保持し続けないように、クラスローダーは弱参照で保持されます。
+     * 同じ理由で、プロバイダのインスタンスではなくクラス名を保持します。
+     */
+    private static final Map<ClassLoader, ConcurrentMap<String, String>> persistenceUnitRoutes =
+            Collections.synchronizedMap(new WeakHashMap<ClassLoader, ConcurrentMap<String, String>>());
     
     /**
      * 指定された名前の永続化ユニットのためのEntityManagerFactoryを作成し、返します。
@@ -59,16 +96,189 @@ public class Persistence {
      * @return 指定された永続化ユニットに従って設定されたEntityManagerを作成するファクトリー
      */
     public static EntityManagerFactory createEntityManagerFactory(String persistenceUnitName, Map properties) {
+        return createEntityManagerFactory(PersistenceProviderResolverHolder.getPersistenceProviderResolver(), persistenceUnitName, properties);
+    }
 
-        EntityManagerFactory emf = null;
+    /**
+     * 与えられたプロパティを使用した指定された名前の永続化ユニットのためのEntityManagerFactoryを返します。
+     * 
+     * <p> 永続化プロバイダによるEntityManagerFactoryの作成は、返されたファクトリーが最初に使用されるまで
+     * (例えば、最初の<code>createEntityManager</code>、<code>getMetamodel</code>、
+     * <code>getCriteriaBuilder</code>の呼び出しまで)遅延されます。
+     * 複数のスレッドが同時に最初の呼び出しを行った場合、作成は一度だけ行われ、それらのスレッドは作成の完了を待ちます。
+     * 作成が失敗した場合、その時の呼び出しと以降のすべての呼び出しは同じ例外をスローします。
+     * 
+     * <p> 作成時には、このメソッドを呼び出したスレッドのコンテキストクラスローダーと、
+     * このメソッドが呼び出された時点のプロパティのコピーが使用されます。
+     * 最初に使用される前にクローズされた場合、永続化プロバイダによるEntityManagerFactoryの作成は行われません。
+     * 
+     * @param persistenceUnitName 永続化ユニットの名前
+     * @param properties ファクトリーを作成する時に使用される追加のプロパティ。
+     *            このプロパティはスキーマ生成のコントロールのためのプロパティを含めることができます。
+     *            このプロパティの値は他の場所で設定されている値を上書きします。
+     * @return 指定された永続化ユニットに従って設定されたEntityManagerを作成するファクトリー
+     * @since Java Persistence 2.3
+     */
+    @SuppressWarnings("rawtypes")
+    public static EntityManagerFactory createLazyEntityManagerFactory(String persistenceUnitName, Map properties) {
+        return new LazyEntityManagerFactory(PersistenceProviderResolverHolder.getPersistenceProviderResolver(),
+                Thread.currentThread().getContextClassLoader(), persistenceUnitName, properties);
+    }
+
+    /**
+     * 与えられたプロパティを使用した指定された名前の永続化ユニットのためのEntityManagerFactoryを非同期に作成します。
+     * 
+     * <p> EntityManagerFactoryは、仮想スレッドが利用可能な場合は仮想スレッドで、そうでない場合は新しいデーモンスレッドで作成されます。
+     * 作成中は、このメソッドを呼び出したスレッドのコンテキストクラスローダーが使用されます。
+     * 
+     * @param persistenceUnitName 永続化ユニットの名前
+     * @param properties ファクトリーを作成する時に使用される追加のプロパティ。
+     *            このプロパティはスキーマ生成のコントロールのためのプロパティを含めることができます。
+     *            このプロパティの値は他の場所で設定されている値を上書きします。
+     * @return 指定された永続化ユニットに従って設定されたEntityManagerを作成するファクトリーで完了する<code>CompletionStage</code>。
+     *         ファクトリーを作成できなかった場合は<code>PersistenceException</code>で例外的に完了します。
+     * @since Java Persistence 2.3
+     */
+    @SuppressWarnings("rawtypes")
+    public static CompletionStage<EntityManagerFactory> createEntityManagerFactoryAsync(String persistenceUnitName, Map properties) {
+        return createEntityManagerFactoryAsync(persistenceUnitName, properties, BOOTSTRAP_EXECUTOR);
+    }
+
+    /**
+     * 与えられたプロパティを使用した指定された名前の永続化ユニットのためのEntityManagerFactoryを、
+     * 指定されたExecutorで非同期に作成します。
+     * 
+     * <p> 作成中は、このメソッドを呼び出したスレッドのコンテキストクラスローダーが使用されます。
+     * 
+     * @param persistenceUnitName 永続化ユニットの名前
+     * @param properties ファクトリーを作成する時に使用される追加のプロパティ。
+     *            このプロパティはスキーマ生成のコントロールのためのプロパティを含めることができます。
+     *            このプロパティの値は他の場所で設定されている値を上書きします。
+     * @param executor ファクトリーの作成に使用されるExecutor
+     * @return 指定された永続化ユニットに従って設定されたEntityManagerを作成するファクトリーで完了する<code>CompletionStage</code>。
+     *         ファクトリーを作成できなかった場合は<code>PersistenceException</code>で例外的に完了します。
+     * @since Java Persistence 2.3
+     */
+    @SuppressWarnings("rawtypes")
+    public static CompletionStage<EntityManagerFactory> createEntityManagerFactoryAsync(String persistenceUnitName, Map properties, Executor executor) {
+        return createEntityManagerFactoryAsync(PersistenceProviderResolverHolder.getPersistenceProviderResolver(),
+                Thread.currentThread().getContextClassLoader(), persistenceUnitName, properties, executor);
+    }
+
+    /**
+     * 複数の永続化ユニットのためのEntityManagerFactoryを並列に作成します。
+     * 
+     * <p> EntityManagerFactoryは、仮想スレッドが利用可能な場合は仮想スレッドで、そうでない場合は新しいデーモンスレッドで作成されます。
+     * 
+     * @param persistenceUnits 永続化ユニットの名前から、そのファクトリーを作成する時に使用される追加のプロパティ
+     *            (もしくは<code>null</code>)へのマップ
+     * @return 永続化ユニットの名前からEntityManagerFactoryへのマップで完了する<code>CompletionStage</code>
+     * @see #createEntityManagerFactoriesAsync(Map, Executor)
+     * @since Java Persistence 2.3
+     */
+    @SuppressWarnings("rawtypes")
+    public static CompletionStage<Map<String, EntityManagerFactory>> createEntityManagerFactoriesAsync(Map<String, ? extends Map> persistenceUnits) {
+        return createEntityManagerFactoriesAsync(persistenceUnits, BOOTSTRAP_EXECUTOR);
+    }
+
+    /**
+     * 複数の永続化ユニットのためのEntityManagerFactoryを、指定されたExecutorで並列に作成します。
+     * 
+     * <p> すべての永続化ユニットは、このメソッドを呼び出したスレッドのコンテキストクラスローダーと
+     * 永続化プロバイダリゾルバを使用して作成されるため、永続化プロバイダの探索は一度だけ行われます。
+     * 
+     * <p> いずれかのファクトリーの作成に失敗した場合、作成に成功したファクトリーはクローズされ、
+     * 返される<code>CompletionStage</code>は時間的に最初に発生した失敗の原因で例外的に完了します。
+     * 他の失敗は待たれますが、報告されません。
+     * 
+     * @param persistenceUnits 永続化ユニットの名前から、そのファクトリーを作成する時に使用される追加のプロパティ
+     *            (もしくは<code>null</code>)へのマップ
+     * @param executor ファクトリーの作成に使用されるExecutor
+     * @return 永続化ユニットの名前からEntityManagerFactoryへの変更不可能なマップで完了する<code>CompletionStage</code>。
+     *         マップの反復順序は<code>persistenceUnits</code>の反復順序と同じです。
+     * @since Java Persistence 2.3
+     */
+    @SuppressWarnings("rawtypes")
+    public static CompletionStage<Map<String, EntityManagerFactory>> createEntityManagerFactoriesAsync(Map<String, ? extends Map> persistenceUnits, Executor executor) {
         PersistenceProviderResolver resolver = PersistenceProviderResolverHolder.getPersistenceProviderResolver();
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
 
-        List<PersistenceProvider> providers = resolver.getPersistenceProviders();
+        final Map<String, CompletableFuture<EntityManagerFactory>> futures = new LinkedHashMap<String, CompletableFuture<EntityManagerFactory>>();
+        final AtomicReference<Throwable> firstFailure = new AtomicReference<Throwable>();
+        List<CompletableFuture<EntityManagerFactory>> completions = new ArrayList<CompletableFuture<EntityManagerFactory>>(persistenceUnits.size());
+        for (Map.Entry<String, ? extends Map> persistenceUnit : persistenceUnits.entrySet()) {
+            CompletableFuture<EntityManagerFactory> future =
+                    createEntityManagerFactoryAsync(resolver, loader, persistenceUnit.getKey(), persistenceUnit.getValue(), executor);
+            futures.put(persistenceUnit.getKey(), future);
+            // allOf reports an arbitrary failure, so remember the first one
+            completions.add(future.whenComplete(new BiConsumer<EntityManagerFactory, Throwable>() {
+                public void accept(EntityManagerFactory emf, Throwable failure) {
+                    if (failure != null) {
+                        firstFailure.compareAndSet(null, failure);
+                    }
+                }
+            }));
+        }
 
-        for (PersistenceProvider provider : providers) {
-            emf = provider.createEntityManagerFactory(persistenceUnitName, properties);
-            if (emf != null) {
-                break;
+        return CompletableFuture.allOf(completions.toArray(new CompletableFuture<?>[completions.size()]))
+                .handle(new BiFunction<Void, Throwable, Map<String, EntityManagerFactory>>() {
+                    public Map<String, EntityManagerFactory> apply(Void result, Throwable allFailure) {
+                        Map<String, EntityManagerFactory> emfs = new LinkedHashMap<String, EntityManagerFactory>();
+                        for (Map.Entry<String, CompletableFuture<EntityManagerFactory>> future : futures.entrySet()) {
+                            if (!future.getValue().isCompletedExceptionally()) {
+                                emfs.put(future.getKey(), future.getValue().join());
+                            }
+                        }
+                        if (allFailure == null) {
+                            return Collections.unmodifiableMap(emfs);
+                        }
+                        Throwable failure = firstFailure.get();
+
+                        // do not leak the factories that could be created
+                        for (EntityManagerFactory emf : emfs.values()) {
+                            try {
+                                emf.close();
+                            } catch (RuntimeException e) {
+                                failure.addSuppressed(e);
+                            }
+                        }
+                        if (failure instanceof CompletionException) {
+                            throw (CompletionException) failure;
+                        }
+                        throw new CompletionException(failure);
+                    }
+                });
+    }
+
+    /**
+     * 指定された永続化プロバイダリゾルバを使用して、EntityManagerFactoryを作成します。
+     * 
+     * @param resolver 永続化プロバイダリゾルバ
+     * @param persistenceUnitName 永続化ユニットの名前
+     * @param properties ファクトリーを作成する時に使用される追加のプロパティ
+     * @return 指定された永続化ユニットに従って設定されたEntityManagerを作成するファクトリー
+     */
+    private static EntityManagerFactory createEntityManagerFactory(PersistenceProviderResolver resolver, String persistenceUnitName, Map<?, ?> properties) {
+
+        EntityManagerFactory emf = null;
+
+        PersistenceProvider routedProvider = getRoutedProvider(resolver, persistenceUnitName, properties);
+        if (routedProvider != null) {
+            emf = probe(routedProvider, persistenceUnitName, properties);
+        }
+        if (emf == null) {
+            List<PersistenceProvider> providers = resolver.getPersistenceProviders();
+
+            for (PersistenceProvider provider : providers) {
+                if (provider == routedProvider) {
+                    // already asked
+                    continue;
+                }
+                emf = probe(provider, persistenceUnitName, properties);
+                if (emf != null) {
+                    setRoutedProvider(persistenceUnitName, provider);
+                    break;
+                }
             }
         }
         if (emf == null) {
@@ -78,6 +288,53 @@ public class Persistence {
     }
 
 
+    /**
+     * 指定されたExecutorで、与えられたコンテキストクラスローダーを使用してEntityManagerFactoryを作成します。
+     * 
+     * @param resolver 永続化プロバイダリゾルバ
+     * @param loader 作成中に使用されるコンテキストクラスローダー
+     * @param persistenceUnitName 永続化ユニットの名前
+     * @param properties ファクトリーを作成する時に使用される追加のプロパティ
+     * @param executor ファクトリーの作成に使用されるExecutor
+     * @return 作成されたファクトリーで完了する<code>CompletableFuture</code>
+     */
+    private static CompletableFuture<EntityManagerFactory> createEntityManagerFactoryAsync(final PersistenceProviderResolver resolver,
+            final ClassLoader loader, final String persistenceUnitName, final Map<?, ?> properties, Executor executor) {
+        return CompletableFuture.supplyAsync(new Supplier<EntityManagerFactory>() {
+            public EntityManagerFactory get() {
+                return createEntityManagerFactory(resolver, loader, persistenceUnitName, properties);
+            }
+        }, executor);
+    }
+
+    /**
+     * 与えられたコンテキストクラスローダーを使用して、現在のスレッドでEntityManagerFactoryを作成します。
+     * 
+     * @param resolver 永続化プロバイダリゾルバ
+     * @param loader 作成中に使用されるコンテキストクラスローダー
+     * @param persistenceUnitName 永続化ユニットの名前
+     * @param properties ファクトリーを作成する時に使用される追加のプロパティ
+     * @return 指定された永続化ユニットに従って設定されたEntityManagerを作成するファクトリー
+     */
+    static EntityManagerFactory createEntityManagerFactory(PersistenceProviderResolver resolver,
+            ClassLoader loader, String persistenceUnitName, Map<?, ?> properties) {
+        Thread thread = Thread.currentThread();
+        ClassLoader contextLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(loader);
+        try {
+            return createEntityManagerFactory(resolver, persistenceUnitName, properties);
+        } finally {
+            thread.setContextClassLoader(contextLoader);
+        }
+    }
+
+    /**
+     * 非同期のブートストラップでExecutorが指定されなかった場合に使用されるExecutorです。
+     * 
+     * <p> EntityManagerFactoryの作成はブロッキングI/Oを伴うため、共通のForkJoinPoolは使用しません。
+     */
+    private static final Executor BOOTSTRAP_EXECUTOR = new ThreadPerTaskExecutor("javax.persistence-bootstrap-");
+
     /**
      * 指定されたプロパティから決定されるデータベーススキーマと/もしくはテーブルを作成するか/もしくはDDLスクリプトを作成します。
      * 
@@ -91,43 +348,216 @@ public class Persistence {
      */
     public static void generateSchema(String persistenceUnitName, Map map) {
         PersistenceProviderResolver resolver = PersistenceProviderResolverHolder.getPersistenceProviderResolver();
+
+        PersistenceProvider routedProvider = getRoutedProvider(resolver, persistenceUnitName, map);
+        if (routedProvider != null && generateSchema(routedProvider, persistenceUnitName, map)) {
+            return;
+        }
+
         List<PersistenceProvider> providers = resolver.getPersistenceProviders();
         
         for (PersistenceProvider provider : providers) {
-            if (provider.generateSchema(persistenceUnitName, map)) {
+            if (provider == routedProvider) {
+                // already asked
+                continue;
+            }
+            if (generateSchema(provider, persistenceUnitName, map)) {
+                setRoutedProvider(persistenceUnitName, provider);
                 return;
             }
         }
         
         throw new PersistenceException("No Persistence provider to generate schema named " + persistenceUnitName);
     }
+
+    /**
+     * プロバイダにエンティティマネージャーファクトリーの作成を問い合わせ、{@link BootstrapEvent}に記録します。
+     * 
+     * @param provider 問い合わせるプロバイダ
+     * @param persistenceUnitName 永続化ユニットの名前
+     * @param properties 追加のプロパティ、もしくは<code>null</code>
+     * @return エンティティマネージャーファクトリー、プロバイダが永続化ユニットを受け入れなかった場合は<code>null</code>
+     */
+    private static EntityManagerFactory probe(PersistenceProvider provider, String persistenceUnitName, Map<?, ?> properties) {
+        BootstrapEvent event = BootstrapEvent.begin(BootstrapEvent.PROVIDER_PROBE, persistenceUnitName, provider.getClass().getName());
+        try {
+            return provider.createEntityManagerFactory(persistenceUnitName, properties);
+        } finally {
+            event.end();
+        }
+    }
+
+    /**
+     * プロバイダにスキーマの生成を問い合わせ、{@link BootstrapEvent}に記録します。
+     * 
+     * @param provider 問い合わせるプロバイダ
+     * @param persistenceUnitName 永続化ユニットの名前
+     * @param map スキーマの生成のためのプロパティ、もしくは<code>null</code>
+     * @return プロバイダがスキーマを生成した場合は<code>true</code>
+     */
+    private static boolean generateSchema(PersistenceProvider provider, String persistenceUnitName, Map<?, ?> map) {
+        BootstrapEvent event = BootstrapEvent.begin(BootstrapEvent.GENERATE_SCHEMA, persistenceUnitName, provider.getClass().getName());
+        try {
+            return provider.generateSchema(persistenceUnitName, map);
+        } finally {
+            event.end();
+        }
+    }
+
     
 
+    /**
+     * 指定された永続化ユニットに最初に問い合わせるべきプロバイダを返します。
+     * 
+     * <p> プロパティで<code>javax.persistence.provider</code>が指定されている場合はそのプロバイダを、
+     * そうでない場合は現在のスレッドのコンテキストクラスローダーで、プロバイダの探索によって
+     * 永続化ユニットを最後に受け入れたプロバイダを返します。
+     * どちらも無い場合は、<code>persistence.xml</code>ファイルの<code>provider</code>要素で指定されたプロバイダを返します。
+     * リゾルバは他のプロバイダをインスタンス化せずにこのプロバイダを返すことができます。
+     * 
+     * @param resolver 現在の永続化プロバイダリゾルバ
+     * @param persistenceUnitName 永続化ユニットの名前
+     * @param properties 追加のプロパティ、もしくは<code>null</code>
+     * @return 対応するプロバイダ、対応するプロバイダが無いか実行環境で利用可能でない場合は<code>null</code>
+     */
+    private static PersistenceProvider getRoutedProvider(PersistenceProviderResolver resolver, String persistenceUnitName, Map<?, ?> properties) {
+        String providerClassName = getRequestedProviderClassName(properties);
+        if (providerClassName == null && persistenceUnitName != null) {
+            Map<String, String> routes = persistenceUnitRoutes.get(Thread.currentThread().getContextClassLoader());
+            providerClassName = (routes != null) ? routes.get(persistenceUnitName) : null;
+        }
+        if (providerClassName == null && persistenceUnitName != null) {
+            providerClassName = getDeclaredProviderClassName(persistenceUnitName);
+        }
+        return (providerClassName != null) ? resolver.getPersistenceProvider(providerClassName) : null;
+    }
+
+    /**
+     * プロパティの<code>javax.persistence.provider</code>で指定されたプロバイダのクラス名を返します。
+     * 
+     * @param properties 追加のプロパティ、もしくは<code>null</code>
+     * @return プロバイダのクラス名、指定されていない場合は<code>null</code>
+     */
+    private static String getRequestedProviderClassName(Map<?, ?> properties) {
+        Object requestedProvider = (properties != null) ? properties.get(PROVIDER_PROPERTY) : null;
+        if (requestedProvider instanceof String) {
+            return (String) requestedProvider;
+        } else if (requestedProvider instanceof Class) {
+            return ((Class<?>) requestedProvider).getName();
+        }
+        return null;
+    }
+
+    /**
+     * 現在のスレッドのコンテキストクラスローダーから参照できる<code>persistence.xml</code>ファイルで、
+     * 指定された永続化ユニットの<code>provider</code>要素に指定されたプロバイダのクラス名を返します。
+     * 
+     * @param persistenceUnitName 永続化ユニットの名前
+     * @return プロバイダのクラス名、指定されていないかファイルを読み込めない場合は<code>null</code>
+     */
+    private static String getDeclaredProviderClassName(String persistenceUnitName) {
+        List<PersistenceUnitInfo> units;
+        try {
+            units = PersistenceXmlReader.readPersistenceUnits(Thread.currentThread().getContextClassLoader());
+        } catch (PersistenceException e) {
+            // leave reporting the broken file to the providers
+            return null;
+        }
+        for (PersistenceUnitInfo unit : units) {
+            if (persistenceUnitName.equals(unit.getPersistenceUnitName())) {
+                return unit.getPersistenceProviderClassName();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * プロバイダの探索で指定された永続化ユニットを受け入れたプロバイダを、
+     * 現在のスレッドのコンテキストクラスローダーについて記録します。
+     * 
+     * @param persistenceUnitName 永続化ユニットの名前
+     * @param provider 永続化ユニットを受け入れたプロバイダ
+     */
+    private static void setRoutedProvider(String persistenceUnitName, PersistenceProvider provider) {
+        if (persistenceUnitName != null) {
+            ClassLoader loader = Thread.currentThread().getContextClassLoader();
+            ConcurrentMap<String, String> routes;
+            synchronized (persistenceUnitRoutes) {
+                routes = persistenceUnitRoutes.get(loader);
+                if (routes == null) {
+                    routes = new ConcurrentHashMap<String, String>();
+                    persistenceUnitRoutes.put(loader, routes);
+                }
+            }
+            String providerClassName = provider.getClass().getName();
+            if (!providerClassName.equals(routes.get(persistenceUnitName))) {
+                routes.put(persistenceUnitName, providerClassName);
+            }
+        }
+    }
+
+    /**
+     * {@link #getPersistenceUtil()}が返す共有インスタンスです。
+     */
+    private static final PersistenceUtil PERSISTENCE_UTIL = new PersistenceUtilImpl();
+
     /**
      * PersistenceUtilのインスタンスを返します。
      * @return PersistenceUtilのインスタンス
      * @since Java Persistence 2.0
      */
     public static PersistenceUtil getPersistenceUtil() {
-       return new PersistenceUtilImpl();
+       return PERSISTENCE_UTIL;
     }
 
     
     /**
      * PersistenceUtilインターフェースの実装です。
+     * 
+     * <p> エンティティクラスを管理するプロバイダは変化しないため、
+     * 確定したロード状態を最後に返したプロバイダをエンティティクラスごとに記憶し、
+     * 以降の呼び出しではそのプロバイダに最初に問い合わせます。
+     * 属性のロード状態については、記憶したプロバイダには<code>isLoadedWithoutReference</code>のみを問い合わせ、
+     * 確定しなかった場合はすべてのプロバイダに通常の順序で問い合わせます。
      * @since Java Persistence 2.0
      */
     private static class PersistenceUtilImpl implements PersistenceUtil {
+
+        /**
+         * エンティティクラスごとのプロバイダの記憶領域です。
+         */
+        private final ClassValue<ProviderAffinity> affinities = new ClassValue<ProviderAffinity>() {
+            @Override
+            protected ProviderAffinity computeValue(Class<?> type) {
+                return new ProviderAffinity();
+            }
+        };
+
         public boolean isLoaded(Object entity, String attributeName) {
             PersistenceProviderResolver resolver = PersistenceProviderResolverHolder.getPersistenceProviderResolver();
 
             List<PersistenceProvider> providers = resolver.getPersistenceProviders();
 
+            ProviderAffinity affinity = getAffinity(entity);
+            PersistenceProvider owner = (affinity != null) ? affinity.getProvider(providers) : null;
+            if (owner != null) {
+                // only the first pass may be short-cut; isLoadedWithReference must
+                // not be asked before every provider has answered without reference
+                LoadState loadstate = owner.getProviderUtil().isLoadedWithoutReference(entity, attributeName);
+                if(loadstate == LoadState.LOADED) {
+                    return true;
+                } else if (loadstate == LoadState.NOT_LOADED) {
+                    return false;
+                } // else ask all providers in order
+            }
+
             for (PersistenceProvider provider : providers) {
                 LoadState loadstate = provider.getProviderUtil().isLoadedWithoutReference(entity, attributeName);
                 if(loadstate == LoadState.LOADED) {
+                    setOwner(affinity, provider);
                     return true;
                 } else if (loadstate == LoadState.NOT_LOADED) {
+                    setOwner(affinity, provider);
                     return false;
                 } // else continue
             }
@@ -136,8 +566,10 @@ public class Persistence {
             for (PersistenceProvider provider : providers) {
                 LoadState loadstate = provider.getProviderUtil().isLoadedWithReference(entity, attributeName);
                 if(loadstate == LoadState.LOADED) {
+                    setOwner(affinity, provider);
                     return true;
                 } else if (loadstate == LoadState.NOT_LOADED) {
+                    setOwner(affinity, provider);
                     return false;
                 } // else continue
             }
@@ -151,17 +583,77 @@ public class Persistence {
 
             List<PersistenceProvider> providers = resolver.getPersistenceProviders();
 
+            ProviderAffinity affinity = getAffinity(entity);
+            PersistenceProvider owner = (affinity != null) ? affinity.getProvider(providers) : null;
+            if (owner != null) {
+                LoadState loadstate = owner.getProviderUtil().isLoaded(entity);
+                if(loadstate == LoadState.LOADED) {
+                    return true;
+                } else if (loadstate == LoadState.NOT_LOADED) {
+                    return false;
+                } // else ask all providers again
+            }
+
             for (PersistenceProvider provider : providers) {
                 LoadState loadstate = provider.getProviderUtil().isLoaded(entity);
                 if(loadstate == LoadState.LOADED) {
+                    setOwner(affinity, provider);
                     return true;
                 } else if (loadstate == LoadState.NOT_LOADED) {
+                    setOwner(affinity, provider);
                     return false;
                 } // else continue
             }
             //None of the providers could determine the load state
             return true;
         }
+
+        private ProviderAffinity getAffinity(Object entity) {
+            return (entity != null) ? affinities.get(entity.getClass()) : null;
+        }
+
+        private static void setOwner(ProviderAffinity affinity, PersistenceProvider provider) {
+            if (affinity != null) {
+                affinity.setProvider(provider);
+            }
+        }
+    }
+
+    /**
+     * あるエンティティクラスに対して確定したロード状態を最後に返したプロバイダを保持します。
+     * 
+     * <p> エンティティクラスからプロバイダのクラスローダーが到達可能なままにならないように、プロバイダは弱参照で保持されます。
+     */
+    private static class ProviderAffinity {
+
+        private volatile WeakReference<PersistenceProvider> providerRef;
+
+        /**
+         * 記憶しているプロバイダが与えられたリストに含まれている場合にそのプロバイダを返します。
+         * 
+         * @param providers 現在利用可能な永続化プロバイダのリスト
+         * @return 記憶しているプロバイダ、もしくは<code>null</code>
+         */
+        PersistenceProvider getProvider(List<PersistenceProvider> providers) {
+            WeakReference<PersistenceProvider> ref = providerRef;
+            PersistenceProvider provider = (ref != null) ? ref.get() : null;
+            if (provider != null) {
+                // the resolver may have been replaced or its cache cleared
+                for (int i = 0, size = providers.size(); i < size; i++) {
+                    if (providers.get(i) == provider) {
+                        return provider;
+                    }
+                }
+            }
+            return null;
+        }
+
+        void setProvider(PersistenceProvider provider) {
+            WeakReference<PersistenceProvider> ref = providerRef;
+            if (ref == null || ref.get() != provider) {
+                providerRef = new WeakReference<PersistenceProvider>(provider);
+            }
+        }
     }
 
     /**
@@ -50,8 +50,24 @@ public interface Query {
     /**
      * SELECTクエリーを実行し、問合せ結果を型のない<code>java.util.stream.Stream</code>として戻します。
      * 
-     * デフォルトでは、このメソッドは<code>getResultList().stream()</code>に委譲しますが、
-     * 永続化プロバイダはこのメソッドをオーバーライドして追加の機能を提供することもできます。
+     * <p> 結果はカーソルから取得され、結果全体がメモリに保持されることはありません。
+     * 一度にデータベースから取得される行の数は<code>javax.persistence.query.fetchSize</code>ヒントで指定できます。
+     * カーソルとデータベースのコネクションは、ストリームがクローズされたとき、
+     * またはすべての結果を消費する終端操作が完了したときに解放されます。
+     * 結果を途中までしか消費しない場合、アプリケーションはストリームをクローズするべきです。
+     * <code>javax.persistence.query.detachConsumed</code>ヒントに<code>true</code>を指定した場合、
+     * 永続化プロバイダは消費されたエンティティを永続化コンテキストからデタッチし、永続化コンテキストが結果の数に比例して大きくなることを避けます。
+     * 
+     * <p> デフォルトの実装は、{@link #setFetchSize}でフェッチサイズが指定されていない場合、
+     * すなわち<code>javax.persistence.query.fetchSize</code>ヒントが{@link #getHints}に含まれていない場合は、
+     * <code>getResultList().stream()</code>を返します。
+     * フェッチサイズが指定されている場合は、フェッチサイズを大きさとするページごとに{@link #setFirstResult}と{@link #setMaxResults}で
+     * 範囲を指定して{@link #getResultList}を実行し、一度に1つのページのみを保持します。
+     * ページごとにクエリーを実行するため、クエリーは<code>ORDER BY</code>で一意な順序を指定しなければなりません。
+     * 順序が一意でない場合、ページの間で結果が飛ばされたり重複したりすることがあります。
+     * クエリーの最初の位置と最大数は、ストリームがクローズされたとき、またはすべての結果を返し終えたときに元に戻されます。
+     * デフォルトの実装は消費されたエンティティをデタッチしません。
+     * 永続化プロバイダはこのメソッドをオーバーライドして、カーソルから結果を取得するべきです。
      *
      * @return 結果のストリーム
      * @throws IllegalStateException Java Persistenceクエリー言語のUPDATEまたはDELETE文で呼び出された場合
@@ -66,7 +82,7 @@ public interface Query {
      * @since 2.2
      */
     default Stream getResultStream() {
-        return getResultList().stream();
+        return PagedResultIterator.stream(this);
     }
 
     /**
@@ -129,6 +145,40 @@ public interface Query {
      */
     int getFirstResult();
 
+    /**
+     * クエリーの結果を取得するときに一度にデータベースから取得される行の数を設定します。
+     * 
+     * <p> フェッチサイズは{@link #getResultStream}や{@link TypedQuery#scroll}で結果を取得するときに
+     * メモリに保持される結果の数を決めます。
+     * デフォルトでは、このメソッドは<code>javax.persistence.query.fetchSize</code>ヒントを設定し、
+     * {@link #getFetchSize}はそのヒントを{@link #getHints}から読み取ります。
+     * 認識しないヒントを無視して{@link #getHints}から返さない永続化プロバイダでは、設定したフェッチサイズは使用されず
+     * デフォルト値が使用されるため、そのような永続化プロバイダはこのメソッドと{@link #getFetchSize}をオーバーライドしなければなりません。
+     * @param fetchSize 一度に取得される行の数
+     * @return 同じクエリーのインスタンス
+     * @throws IllegalArgumentException 引数が0以下だった場合
+     * @since Java Persistence 2.3
+     */
+    default Query setFetchSize(int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be positive: " + fetchSize);
+        }
+        return setHint(PagedResultIterator.FETCH_SIZE_HINT, fetchSize);
+    }
+
+    /**
+     * クエリーオブジェクトに設定されたフェッチサイズ。
+     * 
+     * <code>setFetchSize</code>がクエリーオブジェクトで呼び出されていなかった場合は実装依存のデフォルト値を返します。
+     * デフォルトでは、<code>javax.persistence.query.fetchSize</code>ヒントを{@link #getHints}から読み取り、
+     * ヒントが含まれていない場合は100を返します。
+     * @return 一度に取得される行の数
+     * @since Java Persistence 2.3
+     */
+    default int getFetchSize() {
+        return PagedResultIterator.getFetchSize(this);
+    }
+
     /**
      * クエリーのプロパティもしくはヒントを設定します。
      * 
@@ -137,6 +187,9 @@ public interface Query {
      * プロバイダによって認識されないベンダー固有のヒントは、暗黙のうちに無視されなければなりません。
      * ポータブルアプリケーションは標準のタイムアウトのヒントに頼るべきではありません。
      * 使用されているデータベースおよびプロバイダによっては、このヒントが監視されるかどうかはわかりません。
+     * <p> <code>javax.persistence.readOnly</code>ヒントに<code>true</code>を指定した場合、
+     * クエリーの結果として読み込まれたエンティティは読み取り専用になり、状態のスナップショットが保持されず、フラッシュの対象から除外されます
+     * ({@link EntityManager#setReadOnly(Object, boolean)}を参照してください)。
      * @param hintName  プロパティもしくはヒントの名前
      * @param value  プロパティもしくはヒントのための値
      * @return 同じクエリーのインスタンス
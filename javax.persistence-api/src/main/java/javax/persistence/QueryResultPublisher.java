@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link TypedQuery#getResultPublisher}のデフォルトの実装です。
+ * 
+ * <p> 結果はページごとに、{@link TypedQuery#setFirstResult}と{@link TypedQuery#setMaxResults}で
+ * 範囲を指定してクエリーを実行することで取得されます。
+ * ページの大きさは購読者の要求した数と{@link TypedQuery#getFetchSize}の大きいほう
+ * ({@link #MAX_PAGE_SIZE}を上限とします)で、取得した行は要求に応じてページから順に送られます。
+ * ページの間でカーソルやコネクションは保持されません。
+ * クエリーの最初の位置と最大数は各ページの取得の後に元に戻されます。
+ */
+final class QueryResultPublisher<X> implements ResultPublisher<X> {
+
+    /**
+     * 1つのページの最大の大きさです。
+     */
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final TypedQuery<X> query;
+
+    private final Executor executor;
+
+    QueryResultPublisher(TypedQuery<X> query, Executor executor) {
+        this.query = query;
+        this.executor = executor;
+    }
+
+    public void subscribe(Subscriber<? super X> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        new PageSubscription<X>(query, executor, subscriber).start();
+    }
+
+    /**
+     * 1つの購読です。購読者へのシグナルはすべて{@link #run}から1つのスレッドで順に送られます。
+     */
+    private static final class PageSubscription<X> implements Subscription, Runnable {
+
+        private final TypedQuery<X> query;
+
+        private final Executor executor;
+
+        private final Subscriber<? super X> subscriber;
+
+        private final AtomicLong requested = new AtomicLong();
+
+        /**
+         * 実行が必要になった回数。0から1になったときに{@link #run}を開始します。
+         */
+        private final AtomicInteger work = new AtomicInteger();
+
+        private volatile boolean cancelled;
+
+        private volatile Throwable invalidRequest;
+
+        // accessed by the draining thread only
+
+        private final int firstResult;
+
+        private final int maxResults;
+
+        private final int fetchSize;
+
+        private int position;
+
+        private Iterator<X> page = Collections.<X>emptyList().iterator();
+
+        private boolean lastPage;
+
+        private boolean done;
+
+        PageSubscription(TypedQuery<X> query, Executor executor, Subscriber<? super X> subscriber) {
+            this.query = query;
+            this.executor = executor;
+            this.subscriber = subscriber;
+            this.firstResult = query.getFirstResult();
+            this.maxResults = query.getMaxResults();
+            this.fetchSize = query.getFetchSize();
+            this.position = firstResult;
+        }
+
+        void start() {
+            // hold the drain loop until onSubscribe has returned
+            work.set(1);
+            try {
+                subscriber.onSubscribe(this);
+            } catch (RuntimeException e) {
+                cancelled = true;
+            }
+            exit();
+        }
+
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Non-positive request: " + n);
+            } else {
+                long current;
+                long next;
+                do {
+                    current = requested.get();
+                    next = current + n;
+                    if (next < 0) {
+                        // unbounded
+                        next = Long.MAX_VALUE;
+                    }
+                } while (!requested.compareAndSet(current, next));
+            }
+            schedule();
+        }
+
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (work.getAndIncrement() == 0) {
+                execute();
+            }
+        }
+
+        private void exit() {
+            if (work.decrementAndGet() != 0) {
+                execute();
+            }
+        }
+
+        private void execute() {
+            try {
+                executor.execute(this);
+            } catch (RuntimeException e) {
+                // rejected, report it from the current thread
+                work.set(0);
+                finish();
+                subscriber.onError(e);
+            }
+        }
+
+        public void run() {
+            int missed = 1;
+            while (!done) {
+                drain();
+                missed = work.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+            work.set(0);
+        }
+
+        private void drain() {
+            long emitted = 0;
+            long demand = requested.get();
+            try {
+                while (!done) {
+                    if (cancelled) {
+                        finish();
+                        return;
+                    }
+                    if (invalidRequest != null) {
+                        finish();
+                        subscriber.onError(invalidRequest);
+                        return;
+                    }
+                    if (!page.hasNext()) {
+                        if (lastPage) {
+                            finish();
+                            subscriber.onComplete();
+                            return;
+                        }
+                        if (emitted == demand) {
+                            break;
+                        }
+                        fetch(demand - emitted);
+                        continue;
+                    }
+                    if (emitted == demand) {
+                        break;
+                    }
+                    subscriber.onNext(page.next());
+                    emitted++;
+                }
+            } catch (Throwable t) {
+                if (!done) {
+                    finish();
+                    subscriber.onError(t);
+                }
+                return;
+            }
+            if (demand != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+        }
+
+        /**
+         * Fetches the next page, sized by the outstanding demand but never
+         * smaller than the fetch size, so that single-element requests are
+         * served from the buffered page.
+         */
+        private void fetch(long demand) {
+            int pageSize = (int) Math.min(Math.max(demand, fetchSize), MAX_PAGE_SIZE);
+            boolean limited = maxResults != Integer.MAX_VALUE;
+            int remaining = limited ? maxResults - (position - firstResult) : Integer.MAX_VALUE;
+            if (remaining <= pageSize) {
+                pageSize = remaining;
+                lastPage = true;
+            }
+            if (pageSize <= 0) {
+                page = Collections.<X>emptyList().iterator();
+                return;
+            }
+            List<X> results;
+            try {
+                query.setFirstResult(position);
+                query.setMaxResults(pageSize);
+                results = query.getResultList();
+            } finally {
+                restore();
+            }
+            position += results.size();
+            if (results.size() < pageSize) {
+                lastPage = true;
+            }
+            page = results.iterator();
+        }
+
+        /**
+         * Ends the subscription.
+         */
+        private void finish() {
+            done = true;
+            page = Collections.<X>emptyList().iterator();
+        }
+
+        /**
+         * Restores the window the query had when the subscription started.
+         */
+        private void restore() {
+            try {
+                query.setFirstResult(firstResult);
+                query.setMaxResults(maxResults);
+            } catch (RuntimeException e) {
+                // the query or its entity manager has been closed
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+/**
+ * クエリーの結果を購読者の要求に応じて非同期に送り出すパブリッシャー。
+ * 
+ * <p> このインタフェースとそのネストしたインタフェースは、Java SE 9以降の<code>java.util.concurrent.Flow</code>の
+ * <code>Publisher</code>、<code>Subscriber</code>、<code>Subscription</code>と同じ規約に従います。
+ * 購読者は{@link Subscription#request}で要求した数を超える結果を受け取ることはありません。
+ * Java SE 9以降では、次のように<code>Flow.Publisher</code>に適合させることができます。
+ * <pre>
+ *    Flow.Publisher&lt;X&gt; publisher = subscriber -&gt; resultPublisher.subscribe(new ResultPublisher.Subscriber&lt;X&gt;() {
+ *        public void onSubscribe(ResultPublisher.Subscription s) {
+ *            subscriber.onSubscribe(new Flow.Subscription() {
+ *                public void request(long n) { s.request(n); }
+ *                public void cancel() { s.cancel(); }
+ *            });
+ *        }
+ *        public void onNext(X item) { subscriber.onNext(item); }
+ *        public void onError(Throwable throwable) { subscriber.onError(throwable); }
+ *        public void onComplete() { subscriber.onComplete(); }
+ *    });
+ * </pre>
+ * 
+ * @param <X> 結果の型
+ * @see TypedQuery#getResultPublisher()
+ * 
+ * @since Java Persistence 2.3
+ */
+public interface ResultPublisher<X> {
+
+    /**
+     * 購読者を追加し、クエリーの実行を開始します。
+     * 
+     * 購読者の{@link Subscriber#onSubscribe}が最初に呼び出されます。
+     * @param subscriber  購読者
+     * @throws NullPointerException 購読者がnullの場合
+     */
+    void subscribe(Subscriber<? super X> subscriber);
+
+    /**
+     * クエリーの結果を受け取る購読者。
+     * 
+     * 各メソッドは同時に呼び出されることはなく、{@link #onSubscribe}の後、
+     * 要求した数以下の{@link #onNext}と、最後に{@link #onError}または{@link #onComplete}のいずれかが呼び出されます。
+     * 
+     * @param <X> 結果の型
+     */
+    interface Subscriber<X> {
+
+        /**
+         * 購読が開始されたときに呼び出されます。
+         * 
+         * {@link Subscription#request}が呼び出されるまで結果は送られません。
+         * @param subscription  購読
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * 次の結果を受け取ります。
+         * @param item  結果
+         */
+        void onNext(X item);
+
+        /**
+         * クエリーの実行が失敗したときに呼び出されます。それ以降、メソッドは呼び出されません。
+         * @param throwable  失敗の原因
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * すべての結果を送り終えたときに呼び出されます。それ以降、メソッドは呼び出されません。
+         */
+        void onComplete();
+    }
+
+    /**
+     * パブリッシャーと購読者の間の購読。
+     */
+    interface Subscription {
+
+        /**
+         * 指定された数の結果を追加で要求します。
+         * 
+         * 0以下の数が指定された場合、購読者の{@link Subscriber#onError}が{@link IllegalArgumentException}で呼び出されます。
+         * @param n  追加で要求する結果の数
+         */
+        void request(long n);
+
+        /**
+         * 購読を取り消します。
+         * 
+         * それ以降、結果は送られず、パブリッシャーはクエリーのカーソルとデータベースのコネクションを解放します。
+         */
+        void cancel();
+    }
+}
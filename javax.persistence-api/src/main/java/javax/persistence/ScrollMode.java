@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+/**
+ * {@link TypedQuery#scroll}で取得する{@link ScrollableResults}のカーソルの種類です。
+ * 
+ * @see TypedQuery#scroll(ScrollMode)
+ * @since Java Persistence 2.3
+ */
+public enum ScrollMode {
+
+    /**
+     * カーソルは前方にのみ移動できます。
+     */
+    FORWARD_ONLY,
+
+    /**
+     * カーソルは前後に移動でき、カーソルを開いた後のデータベースの変更は結果に反映されません。
+     */
+    SCROLL_INSENSITIVE,
+
+    /**
+     * カーソルは前後に移動でき、カーソルを開いた後のデータベースの変更が結果に反映されることがあります。
+     */
+    SCROLL_SENSITIVE
+}
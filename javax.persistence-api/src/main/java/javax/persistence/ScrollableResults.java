@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+/**
+ * クエリーの結果の中を移動しながら1行ずつ結果を取得するカーソルです。
+ * 
+ * <p> 行番号は{@link Query#setFirstResult}で指定された位置を0とする、0から始まる番号です。
+ * カーソルは最初は最初の行の前に位置します。
+ * 一度にデータベースから取得される行の数は{@link Query#setFetchSize}で指定され、
+ * カーソルが保持する結果の数はフェッチサイズに依存し、結果全体の数には依存しません。
+ * 
+ * <p> アプリケーションは使用し終えたカーソルをクローズしなければなりません。
+ * カーソルがクローズされるまで、アプリケーションはカーソルを取得したクエリーを使用してはなりません。
+ * 
+ * @param <X> 結果の型
+ * @see TypedQuery#scroll(ScrollMode)
+ * @since Java Persistence 2.3
+ */
+public interface ScrollableResults<X> extends AutoCloseable {
+
+    /**
+     * カーソルを次の行に移動します。
+     * 
+     * @return 次の行が存在する場合は<code>true</code>
+     * @throws IllegalStateException カーソルがクローズされている場合
+     * @throws PersistenceException 結果を取得できなかった場合
+     */
+    boolean next();
+
+    /**
+     * カーソルを前の行に移動します。
+     * 
+     * @return 前の行が存在する場合は<code>true</code>
+     * @throws IllegalStateException カーソルがクローズされている場合、
+     *         またはカーソルが{@link ScrollMode#FORWARD_ONLY}の場合
+     * @throws PersistenceException 結果を取得できなかった場合
+     */
+    boolean previous();
+
+    /**
+     * カーソルを現在の位置から指定された行数だけ移動します。
+     * 
+     * @param rows 移動する行数、負数の場合は後方に移動します
+     * @return 移動した位置に行が存在する場合は<code>true</code>
+     * @throws IllegalStateException カーソルがクローズされている場合、
+     *         またはカーソルが{@link ScrollMode#FORWARD_ONLY}で<code>rows</code>が負数の場合
+     * @throws PersistenceException 結果を取得できなかった場合
+     */
+    boolean scroll(int rows);
+
+    /**
+     * カーソルを指定された行番号の行に移動します。
+     * 
+     * @param rowNumber 0から始まる行番号
+     * @return 指定された行が存在する場合は<code>true</code>
+     * @throws IllegalArgumentException 行番号が負数の場合
+     * @throws IllegalStateException カーソルがクローズされている場合、
+     *         またはカーソルが{@link ScrollMode#FORWARD_ONLY}で現在の行より前の行が指定された場合
+     * @throws PersistenceException 結果を取得できなかった場合
+     */
+    boolean setRowNumber(int rowNumber);
+
+    /**
+     * 現在の行の行番号を返します。
+     * 
+     * @return 0から始まる行番号、カーソルが行に位置していない場合は-1
+     * @throws IllegalStateException カーソルがクローズされている場合
+     */
+    int getRowNumber();
+
+    /**
+     * 現在の行の結果を返します。
+     * 
+     * @return 現在の行の結果
+     * @throws IllegalStateException カーソルがクローズされている場合、
+     *         またはカーソルが行に位置していない場合
+     */
+    X get();
+
+    /**
+     * カーソルをクローズし、カーソルとデータベースのコネクションを解放します。
+     * クローズされたカーソルに対しては何もしません。
+     */
+    void close();
+}
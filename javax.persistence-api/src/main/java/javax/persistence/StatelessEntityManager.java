@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import java.util.Map;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+
+/**
+ * 永続化コンテキストを持たずにエンティティをデータベースと直接やり取りするためのインタフェース。
+ * 
+ * <p> <code>StatelessEntityManager</code>は大量の行を処理するバッチ処理のためのものです。
+ * 各操作は呼び出されたときにデータベースに対して直接実行されます。
+ * 一次キャッシュ、ダーティチェックのためのスナップショット、自動的なフラッシュ、遅延ロード、カスケードは無く、
+ * ライフサイクルコールバックも呼び出されません。
+ * そのため、処理する行の数に関わらず使用するメモリは一定です。
+ * 
+ * <p> このインタフェースから返されるエンティティのインスタンスは常にデタッチ状態です。
+ * 同じ主キーで2回{@link #get}を呼び出すと、異なるインスタンスが返されます。
+ * 遅延ロードされる属性と関連は、フェッチされていない場合は参照できません。
+ * クエリーの結果のエンティティも同様に管理されません。
+ * 
+ * @see EntityManagerFactory#createStatelessEntityManager()
+ * 
+ * @since Java Persistence 2.3
+ */
+public interface StatelessEntityManager {
+
+    /**
+     * エンティティの行を直ちに挿入します。
+     * 
+     * 生成される主キーはエンティティのインスタンスに設定されます。
+     * @param entity  エンティティのインスタンス
+     * @throws EntityExistsException 同じ主キーの行がすでに存在する場合
+     * @throws IllegalArgumentException インスタンスがエンティティでない場合
+     * @throws TransactionRequiredException トランザクションが必要な場合にトランザクションが存在しない場合
+     * @throws PersistenceException 挿入に失敗した場合
+     */
+    public void insert(Object entity);
+
+    /**
+     * エンティティのすべての属性で行を直ちに更新します。
+     * 
+     * エンティティにバージョン属性が含まれる場合、楽観バージョンチェックが行われ、バージョンが更新されます。
+     * @param entity  エンティティのインスタンス
+     * @throws IllegalArgumentException インスタンスがエンティティでない場合
+     * @throws OptimisticLockException 楽観バージョンチェックに失敗した場合、または行が存在しない場合
+     * @throws TransactionRequiredException トランザクションが必要な場合にトランザクションが存在しない場合
+     * @throws PersistenceException 更新に失敗した場合
+     */
+    public void update(Object entity);
+
+    /**
+     * エンティティの行を直ちに削除します。
+     * 
+     * エンティティにバージョン属性が含まれる場合、楽観バージョンチェックが行われます。
+     * @param entity  エンティティのインスタンス
+     * @throws IllegalArgumentException インスタンスがエンティティでない場合
+     * @throws OptimisticLockException 楽観バージョンチェックに失敗した場合、または行が存在しない場合
+     * @throws TransactionRequiredException トランザクションが必要な場合にトランザクションが存在しない場合
+     * @throws PersistenceException 削除に失敗した場合
+     */
+    public void delete(Object entity);
+
+    /**
+     * 主キーでエンティティをデータベースから読み込みます。
+     * @param entityClass  エンティティクラス
+     * @param primaryKey  主キー
+     * @return 読み込まれたデタッチ状態のエンティティのインスタンス、存在しない場合はnull
+     * @throws IllegalArgumentException 最初の引数がエンティティ型を示さない場合、または2番目の引数がそのエンティティの主キーの有効な型でないかnullの場合
+     */
+    public <T> T get(Class<T> entityClass, Object primaryKey);
+
+    /**
+     * 主キーでエンティティをデータベースから読み込み、ロックします。
+     * @param entityClass  エンティティクラス
+     * @param primaryKey  主キー
+     * @param lockMode  ロックモード
+     * @return 読み込まれたデタッチ状態のエンティティのインスタンス、存在しない場合はnull
+     * @throws IllegalArgumentException 最初の引数がエンティティ型を示さない場合、または2番目の引数がそのエンティティの主キーの有効な型でないかnullの場合
+     * @throws TransactionRequiredException トランザクションが存在しないときに<code>NONE</code>以外のロックモードが指定されている場合
+     * @throws PessimisticLockException 悲観ロックに失敗し、トランザクションがロールバックされた場合
+     * @throws LockTimeoutException 悲観ロックに失敗し、ステートメントのみがロールバックされた場合
+     * @throws PersistenceException サポートされていないロック呼び出しが行われた場合
+     */
+    public <T> T get(Class<T> entityClass, Object primaryKey, LockModeType lockMode);
+
+    /**
+     * エンティティの状態をデータベースから読み込み直します。
+     * @param entity  エンティティのインスタンス
+     * @throws IllegalArgumentException インスタンスがエンティティでない場合
+     * @throws EntityNotFoundException エンティティがデータベースに存在しない場合
+     */
+    public void refresh(Object entity);
+
+    /**
+     * JPQLのステートメントを実行するための<code>Query</code>のインスタンスを作成します。
+     * @param qlString JQPLの文字列
+     * @return 新しいクエリーのインスタンス
+     * @throws IllegalArgumentException クエリー文字列が不正である場合
+     */
+    public Query createQuery(String qlString);
+
+    /**
+     * JPQLのステートメントを実行するための<code>TypedQuery</code>のインスタンスを作成します。
+     * @param qlString JQPLの文字列
+     * @param resultClass クエリーの結果の型
+     * @return 新しいクエリーのインスタンス
+     * @throws IllegalArgumentException クエリー文字列が不正である場合、
+     * またはクエリー結果が指定された型に割り当てる事が出来ない場合
+     */
+    public <T> TypedQuery<T> createQuery(String qlString, Class<T> resultClass);
+
+    /**
+     * クライテリアクエリーのための<code>TypedQuery</code>のインスタンスを作成します。
+     * @param criteriaQuery  クライテリアクエリーオブジェクト
+     * @return 新しいクエリーのインスタンス
+     * @throws IllegalArgumentException クライテリアクエリー文字列が不正である場合
+     */
+    public <T> TypedQuery<T> createQuery(CriteriaQuery<T> criteriaQuery);
+
+    /**
+     * クライテリア更新クエリーのための<code>Query</code>のインスタンスを作成します。
+     * @param updateQuery  クライテリア更新クエリーオブジェクト
+     * @return 新しいクエリーのインスタンス
+     * @throws IllegalArgumentException 更新クエリー文字列が不正である場合
+     */
+    @SuppressWarnings("rawtypes")
+    public Query createQuery(CriteriaUpdate updateQuery);
+
+    /**
+     * クライテリア削除クエリーのための<code>Query</code>のインスタンスを作成します。
+     * @param deleteQuery  クライテリア削除クエリーオブジェクト
+     * @return 新しいクエリーのインスタンス
+     * @throws IllegalArgumentException 削除クエリー文字列が不正である場合
+     */
+    @SuppressWarnings("rawtypes")
+    public Query createQuery(CriteriaDelete deleteQuery);
+
+    /**
+     * 名前付き(JPQLまたはネイティブSQLの)クエリーを実行するための<code>Query</code>インスタンスを作成します。
+     * @param name メタデータ内で定義されたクエリーの名前
+     * @return 新しいクエリーのインスタンス
+     * @throws IllegalArgumentException 指定された名前でクエリーが定義されていない場合、またはクエリー文字列が不正である場合
+     */
+    public Query createNamedQuery(String name);
+
+    /**
+     * JPQLの名前付きクエリーを実行するための<code>TypedQuery</code>のインスタンスを作成します。
+     * @param name メタデータ内で定義されたクエリーの名前
+     * @param resultClass クエリーの結果の型
+     * @return 新しいクエリーのインスタンス
+     * @throws IllegalArgumentException 指定された名前でクエリーが定義されていない場合、またはクエリー文字列が不正である場合、
+     * またはクエリー結果が指定された型に割り当てる事が出来ない場合
+     */
+    public <T> TypedQuery<T> createNamedQuery(String name, Class<T> resultClass);
+
+    /**
+     * ネイティブSQLクエリーを実行するための<code>Query</code>のインスタンスを作成します。
+     * @param sqlString ネイティブSQLクエリー文字列
+     * @return 新しいクエリーのインスタンス
+     */
+    public Query createNativeQuery(String sqlString);
+
+    /**
+     * ネイティブSQLクエリーを実行するための<code>Query</code>のインスタンスを作成します。
+     * @param sqlString ネイティブSQLクエリー文字列
+     * @param resultClass 結果のインスタンスのクラス
+     * @return 新しいクエリーのインスタンス
+     */
+    @SuppressWarnings("rawtypes")
+    public Query createNativeQuery(String sqlString, Class resultClass);
+
+    /**
+     * プロパティとヒントを返します。
+     * @return プロパティとヒントのマップ
+     * @throws IllegalStateException エンティティマネージャーがすでにクローズされている場合
+     */
+    public Map<String, Object> getProperties();
+
+    /**
+     * リソースレベルの<code>EntityTransaction</code>オブジェクトを返します。
+     * @return EntityTransactionのインスタンス
+     * @throws IllegalStateException JTAのエンティティマネージャーで実行された場合
+     */
+    public EntityTransaction getTransaction();
+
+    /**
+     * 現在アクティブなJTAトランザクションに参加するようにエンティティマネージャーに指示します。
+     * @throws TransactionRequiredException トランザクションが存在しない場合
+     */
+    public void joinTransaction();
+
+    /**
+     * <code>CriteriaQuery</code>オブジェクトを作るための<code>CriteriaBuilder</code>のインスタンスを返します。
+     * @return CriteriaBuilderのインスタンス
+     * @throws IllegalStateException エンティティマネージャーがすでにクローズされている場合
+     */
+    public CriteriaBuilder getCriteriaBuilder();
+
+    /**
+     * このエンティティマネージャーのエンティティマネージャーファクトリーを返します。
+     * @return EntityManagerFactoryのインスタンス
+     * @throws IllegalStateException エンティティマネージャーがすでにクローズされている場合
+     */
+    public EntityManagerFactory getEntityManagerFactory();
+
+    /**
+     * プロバイダー固有のAPIにアクセスできるように、指定された型のオブジェクトを返します。
+     * @param cls 返されるオブジェクトのクラス
+     * @return 指定されたクラスのインスタンス
+     * @throws PersistenceException プロバイダーがこの呼び出しをサポートしていない場合
+     */
+    public <T> T unwrap(Class<T> cls);
+
+    /**
+     * エンティティマネージャーをクローズし、データベースのコネクションを解放します。
+     */
+    public void close();
+
+    /**
+     * エンティティマネージャーがオープンしているかどうかを返します。
+     * @return エンティティマネージャーがクローズされるまではtrue
+     */
+    public boolean isOpen();
+}
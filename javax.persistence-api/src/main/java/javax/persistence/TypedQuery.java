@@ -49,8 +49,24 @@ public interface TypedQuery<X> extends Query {
     /**
      * SELECTクエリーを実行し、問合せ結果を型付き<code>java.util.stream.Stream</code>として戻します。
      * 
-     * デフォルトでは、このメソッドは<code>getResultList().stream()</code>に委譲しますが、
-     * 永続化プロバイダはこのメソッドをオーバーライドして追加の機能を提供することもできます。
+     * <p> 結果はカーソルから取得され、結果全体がメモリに保持されることはありません。
+     * 一度にデータベースから取得される行の数は<code>javax.persistence.query.fetchSize</code>ヒントで指定できます。
+     * カーソルとデータベースのコネクションは、ストリームがクローズされたとき、
+     * またはすべての結果を消費する終端操作が完了したときに解放されます。
+     * 結果を途中までしか消費しない場合、アプリケーションはストリームをクローズするべきです。
+     * <code>javax.persistence.query.detachConsumed</code>ヒントに<code>true</code>を指定した場合、
+     * 永続化プロバイダは消費されたエンティティを永続化コンテキストからデタッチし、永続化コンテキストが結果の数に比例して大きくなることを避けます。
+     * 
+     * <p> デフォルトの実装は、{@link #setFetchSize}でフェッチサイズが指定されていない場合、
+     * すなわち<code>javax.persistence.query.fetchSize</code>ヒントが{@link #getHints}に含まれていない場合は、
+     * <code>getResultList().stream()</code>を返します。
+     * フェッチサイズが指定されている場合は、フェッチサイズを大きさとするページごとに{@link #setFirstResult}と{@link #setMaxResults}で
+     * 範囲を指定して{@link #getResultList}を実行し、一度に1つのページのみを保持します。
+     * ページごとにクエリーを実行するため、クエリーは<code>ORDER BY</code>で一意な順序を指定しなければなりません。
+     * 順序が一意でない場合、ページの間で結果が飛ばされたり重複したりすることがあります。
+     * クエリーの最初の位置と最大数は、ストリームがクローズされたとき、またはすべての結果を返し終えたときに元に戻されます。
+     * デフォルトの実装は消費されたエンティティをデタッチしません。
+     * 永続化プロバイダはこのメソッドをオーバーライドして、カーソルから結果を取得するべきです。
      *
      * @return 結果のストリーム
      * @throws IllegalStateException Java Persistenceクエリー言語のUPDATEまたはDELETE文で呼び出された場合
@@ -65,7 +81,56 @@ public interface TypedQuery<X> extends Query {
      * @since 2.2
      */
     default Stream<X> getResultStream() {
-        return getResultList().stream();
+        return PagedResultIterator.stream(this);
+    }
+
+    /**
+     * SELECTクエリーを実行し、結果を購読者の要求に応じて非同期に送り出す{@link ResultPublisher}を返します。
+     * 
+     * <p> クエリーは購読されるたびに実行されます。
+     * 結果は購読者の要求した数を大きさとするバッチで取得され、購読が取り消されるとカーソルとデータベースのコネクションが解放されます。
+     * そのため、遅い購読者に対しても結果全体をメモリに保持することなく結果を送り出すことができます。
+     * 
+     * <p> 購読が終了するまで、アプリケーションはこのクエリーとその<code>EntityManager</code>を使用してはなりません。
+     * 
+     * <p> デフォルトの実装は、仮想スレッドが利用可能な場合は仮想スレッドで、要求された数を大きさとするページごとに
+     * {@link #setFirstResult}と{@link #setMaxResults}で範囲を指定して{@link #getResultList}を実行します。
+     * ページの間で結果が変わらないように、クエリーは一意な順序を指定するべきです。
+     * 永続化プロバイダはこのメソッドをオーバーライドしてカーソルから結果を取得することができます。
+     *
+     * @return 結果のパブリッシャー
+     * @throws IllegalStateException Java Persistenceクエリー言語のUPDATEまたはDELETE文で呼び出された場合
+     * @see ResultPublisher
+     * @since Java Persistence 2.3
+     */
+    default ResultPublisher<X> getResultPublisher() {
+        return new QueryResultPublisher<X>(this, DefaultAsyncEntityManager.DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * SELECTクエリーを実行し、結果の中を前後に移動できる{@link ScrollableResults}を返します。
+     * 
+     * <p> 結果はカーソルから取得され、一度にデータベースから取得される行の数は{@link #setFetchSize}で指定されます。
+     * カーソルが保持する結果の数はフェッチサイズに依存し、結果全体の数には依存しません。
+     * アプリケーションは使用し終えたカーソルをクローズしなければなりません。
+     * 
+     * <p> デフォルトの実装は、フェッチサイズを大きさとするウィンドウごとに{@link #setFirstResult}と{@link #setMaxResults}で範囲を指定して
+     * {@link #getResultList}を実行し、一度に1つのウィンドウのみを保持します。
+     * ウィンドウごとにクエリーを実行するため、{@link ScrollMode#SCROLL_INSENSITIVE}の場合でもデータベースの変更が結果に反映されることがあります。
+     * ウィンドウの間で結果が変わらないように、クエリーは一意な順序を指定するべきです。
+     * 永続化プロバイダはこのメソッドをオーバーライドして、スクロール可能なカーソルから結果を取得するべきです。
+     *
+     * @param mode カーソルの種類
+     * @return 結果のカーソル
+     * @throws IllegalArgumentException <code>mode</code>が<code>null</code>の場合
+     * @throws IllegalStateException Java Persistenceクエリー言語のUPDATEまたはDELETE文で呼び出された場合。
+     *         デフォルトの実装はカーソルを最初に移動するまでクエリーを実行しないため、
+     *         この例外は返されたカーソルの最初の移動で投げられます
+     * @see ScrollableResults
+     * @since Java Persistence 2.3
+     */
+    default ScrollableResults<X> scroll(ScrollMode mode) {
+        return new PagedScrollableResults<X>(this, mode);
     }
 
     /**
@@ -99,6 +164,27 @@ public interface TypedQuery<X> extends Query {
      */
     TypedQuery<X> setFirstResult(int startPosition);
 
+    /**
+     * クエリーの結果を取得するときに一度にデータベースから取得される行の数を設定します。
+     * 
+     * <p> フェッチサイズは{@link #getResultStream}や{@link #scroll}で結果を取得するときに
+     * メモリに保持される結果の数を決めます。
+     * デフォルトでは、このメソッドは<code>javax.persistence.query.fetchSize</code>ヒントを設定し、
+     * {@link #getFetchSize}はそのヒントを{@link #getHints}から読み取ります。
+     * 認識しないヒントを無視して{@link #getHints}から返さない永続化プロバイダでは、設定したフェッチサイズは使用されず
+     * デフォルト値が使用されるため、そのような永続化プロバイダはこのメソッドと{@link #getFetchSize}をオーバーライドしなければなりません。
+     * @param fetchSize 一度に取得される行の数
+     * @return 同じクエリーのインスタンス
+     * @throws IllegalArgumentException 引数が0以下だった場合
+     * @since Java Persistence 2.3
+     */
+    default TypedQuery<X> setFetchSize(int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be positive: " + fetchSize);
+        }
+        return setHint(PagedResultIterator.FETCH_SIZE_HINT, fetchSize);
+    }
+
     /**
      * クエリーのプロパティもしくはヒントを設定します。
      * 
@@ -107,6 +193,9 @@ public interface TypedQuery<X> extends Query {
      * プロバイダによって認識されないベンダー固有のヒントは、暗黙のうちに無視されなければなりません。
      * ポータブルアプリケーションは標準のタイムアウトのヒントに頼るべきではありません。
      * 使用されているデータベースおよびプロバイダが使用しているロックメカニズムによっては、このヒントが監視されるかどうかはわかりません。
+     * <p> <code>javax.persistence.readOnly</code>ヒントに<code>true</code>を指定した場合、
+     * クエリーの結果として読み込まれたエンティティは読み取り専用になり、状態のスナップショットが保持されず、フラッシュの対象から除外されます
+     * ({@link EntityManager#setReadOnly(Object, boolean)}を参照してください)。
      * @param hintName  プロパティもしくはヒントの名前
      * @param value  プロパティもしくはヒントのための値
      * @return 同じクエリーのインスタンス
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import javax.persistence.spi.ThreadPerTaskExecutor;
+
+/**
+ * {@link EntityManagerFactory#warmUp}で事前に初期化する対象と、初期化を行うエグゼキュータを指定します。
+ * 
+ * <p> このクラスのインスタンスは不変です。<code>with</code>で始まるメソッドは変更されたコピーを返します。
+ * <pre>
+ *    WarmUpResult result = emf.warmUp(WarmUpOptions.all().withExecutor(executor));
+ * </pre>
+ * 
+ * @since Java Persistence 2.3
+ */
+public final class WarmUpOptions {
+
+    /**
+     * 事前に初期化する対象の種類です。
+     */
+    public enum Target {
+
+        /**
+         * メタモデルの管理クラスとその属性
+         */
+        METAMODEL,
+
+        /**
+         * {@link NamedQuery}、{@link NamedNativeQuery}および{@link NamedStoredProcedureQuery}で定義されたクエリ
+         */
+        NAMED_QUERIES,
+
+        /**
+         * {@link NamedEntityGraph}で定義されたエンティティグラフ
+         */
+        ENTITY_GRAPHS,
+
+        /**
+         * {@link AttributeConverter}
+         */
+        CONVERTERS,
+
+        /**
+         * 遅延ロードのためのプロキシクラス
+         */
+        PROXIES
+    }
+
+    private static final WarmUpOptions ALL = new WarmUpOptions(EnumSet.allOf(Target.class), null);
+
+    /**
+     * エグゼキュータが指定されなかった場合に使用されるエグゼキュータです。
+     * 
+     * <p> 初期化はクラスのロード、I/Oおよびエンティティマネージャーの使用でブロックするため、共通のForkJoinPoolは使用しません。
+     */
+    private static final Executor DEFAULT_EXECUTOR = new ThreadPerTaskExecutor("javax.persistence-warmup-");
+
+    private final Set<Target> targets;
+
+    private final Executor executor;
+
+    private WarmUpOptions(Set<Target> targets, Executor executor) {
+        this.targets = Collections.unmodifiableSet(targets);
+        this.executor = executor;
+    }
+
+    /**
+     * すべての対象を、項目ごとに新しいスレッドで初期化するオプションを返します。
+     * 
+     * @return すべての対象を初期化するオプション
+     */
+    public static WarmUpOptions all() {
+        return ALL;
+    }
+
+    /**
+     * 初期化する対象を指定されたものに限定したコピーを返します。
+     * 
+     * @param targets 初期化する対象
+     * @return 変更されたオプション
+     */
+    public WarmUpOptions withTargets(Target... targets) {
+        Set<Target> set = EnumSet.noneOf(Target.class);
+        Collections.addAll(set, targets);
+        return new WarmUpOptions(set, executor);
+    }
+
+    /**
+     * 指定されたエグゼキュータで初期化を行うコピーを返します。
+     * 
+     * @param executor 初期化を行うエグゼキュータ、項目ごとに新しいスレッドで初期化する場合は<code>null</code>
+     * @return 変更されたオプション
+     */
+    public WarmUpOptions withExecutor(Executor executor) {
+        Set<Target> set = EnumSet.noneOf(Target.class);
+        set.addAll(targets);
+        return new WarmUpOptions(set, executor);
+    }
+
+    /**
+     * 初期化する対象を返します。
+     * 
+     * @return 初期化する対象の変更できないセット
+     */
+    public Set<Target> getTargets() {
+        return targets;
+    }
+
+    /**
+     * 初期化を行うエグゼキュータを返します。
+     * 
+     * <p> エグゼキュータが指定されていない場合は、仮想スレッドが利用可能な場合は仮想スレッドを、
+     * そうでない場合は新しいデーモンスレッドを項目ごとに開始する{@link ThreadPerTaskExecutor}を返します。
+     * 
+     * @return エグゼキュータ
+     */
+    public Executor getExecutor() {
+        return (executor != null) ? executor : DEFAULT_EXECUTOR;
+    }
+}
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link EntityManagerFactory#warmUp}の結果です。初期化したそれぞれの項目の所要時間と失敗、
+ * および実装がサポートしないために初期化されなかった対象を保持します。
+ * 
+ * @since Java Persistence 2.3
+ */
+public final class WarmUpResult {
+
+    /**
+     * 初期化した1つの項目です。
+     */
+    public static final class Item {
+
+        private final WarmUpOptions.Target target;
+
+        private final String name;
+
+        private final Duration duration;
+
+        private final Throwable failure;
+
+        /**
+         * 初期化した項目を作成します。
+         * 
+         * @param target 項目の種類
+         * @param name 項目の名前、例えばクエリやエンティティグラフの名前やクラス名
+         * @param duration 初期化の所要時間
+         * @param failure 初期化に失敗した場合の例外、成功した場合は<code>null</code>
+         */
+        public Item(WarmUpOptions.Target target, String name, Duration duration, Throwable failure) {
+            this.target = target;
+            this.name = name;
+            this.duration = duration;
+            this.failure = failure;
+        }
+
+        /**
+         * 項目の種類を返します。
+         * 
+         * @return 項目の種類
+         */
+        public WarmUpOptions.Target getTarget() {
+            return target;
+        }
+
+        /**
+         * 項目の名前を返します。
+         * 
+         * @return 項目の名前
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 初期化の所要時間を返します。
+         * 
+         * @return 所要時間
+         */
+        public Duration getDuration() {
+            return duration;
+        }
+
+        /**
+         * 初期化に失敗した場合の例外を返します。
+         * 
+         * @return 例外、成功した場合は<code>null</code>
+         */
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        @Override
+        public String toString() {
+            return target + " " + name + " " + duration.toMillis() + "ms" + ((failure != null) ? " failed: " + failure : "");
+        }
+    }
+
+    private final List<Item> items;
+
+    private final Set<WarmUpOptions.Target> skippedTargets;
+
+    private final Duration duration;
+
+    /**
+     * すべての対象を初期化した結果を作成します。
+     * 
+     * @param items 初期化した項目
+     * @param duration 全体の所要時間
+     */
+    public WarmUpResult(List<Item> items, Duration duration) {
+        this(items, Collections.<WarmUpOptions.Target>emptySet(), duration);
+    }
+
+    /**
+     * 結果を作成します。
+     * 
+     * @param items 初期化した項目
+     * @param skippedTargets 指定されたが、実装がサポートしないために初期化されなかった対象
+     * @param duration 全体の所要時間
+     */
+    public WarmUpResult(List<Item> items, Set<WarmUpOptions.Target> skippedTargets, Duration duration) {
+        this.items = Collections.unmodifiableList(new ArrayList<Item>(items));
+        Set<WarmUpOptions.Target> skipped = EnumSet.noneOf(WarmUpOptions.Target.class);
+        skipped.addAll(skippedTargets);
+        this.skippedTargets = Collections.unmodifiableSet(skipped);
+        this.duration = duration;
+    }
+
+    /**
+     * 初期化した項目を返します。
+     * 
+     * @return 項目の変更できないリスト
+     */
+    public List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * 初期化に失敗した項目を返します。
+     * 
+     * @return 失敗した項目のリスト
+     */
+    public List<Item> getFailures() {
+        List<Item> failures = new ArrayList<Item>();
+        for (Item item : items) {
+            if (item.getFailure() != null) {
+                failures.add(item);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * 指定されたが、実装がサポートしないために初期化されなかった対象を返します。
+     * 
+     * @return 対象の変更できないセット
+     */
+    public Set<WarmUpOptions.Target> getSkippedTargets() {
+        return skippedTargets;
+    }
+
+    /**
+     * 指定されたすべての対象を初期化し、すべての項目の初期化に成功したかどうかを返します。
+     * 
+     * @return 失敗した項目と初期化されなかった対象が無い場合は<code>true</code>
+     */
+    public boolean isSuccessful() {
+        return skippedTargets.isEmpty() && getFailures().isEmpty();
+    }
+
+    /**
+     * 全体の所要時間を返します。項目は並行して初期化されるため、各項目の所要時間の合計よりも短くなります。
+     * 
+     * @return 全体の所要時間
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+}
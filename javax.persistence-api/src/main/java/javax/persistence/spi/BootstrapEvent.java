@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+/**
+ * 永続化ユニットのブートストラップの1つのフェーズの実行を記録するイベントです。
+ * 
+ * <p> Java 11以降では、イベントはJDK Flight Recorderに<code>javax.persistence.Bootstrap</code>イベントとして記録され、
+ * フェーズ、永続化ユニットの名前、プロバイダのクラス名、および所要時間を持ちます。
+ * Flight Recorderが利用できない場合、または記録が有効になっていない場合、イベントは何も行いません。
+ * 
+ * <p> このモジュールは{@link #PROVIDER_SCAN}、{@link #PROVIDER_PROBE}、{@link #GENERATE_SCHEMA}および
+ * {@link #CLASS_TRANSFORM}のフェーズを記録します。
+ * 永続化プロバイダは独自のフェーズ、例えばメタモデルの構築を同じ方法で記録することができます。
+ * <pre>
+ *    BootstrapEvent event = BootstrapEvent.begin("metamodel", info.getPersistenceUnitName(), getClass().getName());
+ *    try {
+ *        buildMetamodel(info);
+ *    } finally {
+ *        event.end();
+ *    }
+ * </pre>
+ * 
+ * @since Java Persistence 2.3
+ */
+public final class BootstrapEvent {
+
+    /**
+     * {@link PersistenceProviderResolver}による永続化プロバイダの探索のフェーズです。
+     */
+    public static final String PROVIDER_SCAN = "providerScan";
+
+    /**
+     * 永続化プロバイダへのエンティティマネージャーファクトリーの作成の問い合わせのフェーズです。
+     */
+    public static final String PROVIDER_PROBE = "providerProbe";
+
+    /**
+     * 永続化プロバイダによるスキーマの生成のフェーズです。
+     */
+    public static final String GENERATE_SCHEMA = "generateSchema";
+
+    /**
+     * {@link ClassTransformer#transform}によるクラスの変換のフェーズです。
+     */
+    public static final String CLASS_TRANSFORM = "classTransform";
+
+    private static final BootstrapEvent DISABLED = new BootstrapEvent(null);
+
+    /**
+     * The recorder specific event, or null if the event is not recorded.
+     */
+    private Object recording;
+
+    private BootstrapEvent(Object recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * フェーズの開始を記録します。
+     * 
+     * @param phase フェーズの名前
+     * @param persistenceUnitName 永続化ユニットの名前、もしくは<code>null</code>
+     * @param providerClassName 永続化プロバイダのクラス名、もしくは<code>null</code>
+     * @return {@link #end}によってフェーズの終了を記録するイベント
+     */
+    public static BootstrapEvent begin(String phase, String persistenceUnitName, String providerClassName) {
+        Object recording = BootstrapEventRecorder.begin(phase, persistenceUnitName, providerClassName);
+        return (recording != null) ? new BootstrapEvent(recording) : DISABLED;
+    }
+
+    /**
+     * フェーズの終了を記録します。
+     * 2回目以降の呼び出しは何も行いません。
+     */
+    public void end() {
+        Object recording = this.recording;
+        if (recording != null) {
+            this.recording = null;
+            BootstrapEventRecorder.end(recording);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+/**
+ * Records BootstrapEvents.
+ * 
+ * Java Flight Recorder is not part of Java SE 8, so this version of the
+ * class records nothing. The Java 11 version records JFR events.
+ */
+final class BootstrapEventRecorder {
+
+    private BootstrapEventRecorder() {
+    }
+
+    /**
+     * Starts recording a phase, returning null if it is not recorded.
+     */
+    static Object begin(String phase, String persistenceUnitName, String providerClassName) {
+        return null;
+    }
+
+    /**
+     * Ends recording a phase started by begin.
+     */
+    static void end(Object recording) {
+    }
+}
@@ -0,0 +1,330 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.instrument.IllegalClassFormatException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 複数の{@link ClassTransformer}を順に適用し、変換の結果をローカルディスクにキャッシュするトランスフォーマーです。
+ * 
+ * <p> 変換の結果は、入力のクラスファイルとクラスの名前、トランスフォーマーのクラス名、
+ * およびコンストラクタに指定された永続化ユニットの名前と構成のフィンガープリントから計算されるSHA-256ハッシュを
+ * キーとしてキャッシュディレクトリに保存されます。
+ * そのため、JVMを再起動してもクラスファイルとトランスフォーマーが変わらない限り、変換は再度実行されません。
+ * トランスフォーマーのバージョンや、マッピングなどの変換に影響する構成が変わる場合は、フィンガープリントも変えなければなりません。
+ * 
+ * <p> 各キャッシュファイルにはキーと内容のチェックサムが記録され、一致しないファイルは無視されて作成し直されます。
+ * チェックサムは破損したファイルを検出しますが、改ざんを防ぐものではありません。
+ * キャッシュされたクラスファイルはそのまま定義されるため、キャッシュディレクトリはアプリケーションを実行するユーザーのみが
+ * 書き込めるディレクトリでなければなりません。存在しないディレクトリは所有者のみがアクセスできるように作成されます。
+ * 
+ * <p> {@link #transformAll}を使用すると、同時に定義される複数のクラスを並行して変換できます。
+ * 
+ * <p> キャッシュの読み書きに失敗した場合、変換はキャッシュを使用せずに行われます。
+ * このクラスはスレッドセーフです。
+ * 
+ * @since Java Persistence 2.3
+ */
+public final class CachingClassTransformer implements ClassTransformer {
+
+    private static final Logger LOGGER = Logger.getLogger("javax.persistence.spi");
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * A cache file without content after its checksum records that no
+     * transformer changed the class.
+     */
+    private static final byte[] UNCHANGED = new byte[0];
+
+    /**
+     * The length of the SHA-256 checksum in front of each cache file.
+     */
+    private static final int CHECKSUM_LENGTH = 32;
+
+    private static final Executor DEFAULT_EXECUTOR = new ThreadPerTaskExecutor("javax.persistence-transform-");
+
+    private final List<ClassTransformer> transformers;
+
+    private final String persistenceUnitName;
+
+    private final byte[] keyPrefix;
+
+    private final File cacheDirectory;
+
+    private final Executor executor;
+
+    /**
+     * タスクごとに新しいスレッドで並行して変換を行うトランスフォーマーを作成します。
+     * 
+     * <p> 変換はキャッシュの読み書きのブロッキングI/Oを伴うため、共通の{@link java.util.concurrent.ForkJoinPool}は使用せず、
+     * {@link ThreadPerTaskExecutor}を使用します。
+     * 
+     * @param transformers 順に適用されるトランスフォーマー
+     * @param persistenceUnitName トランスフォーマーを登録した永続化ユニットの名前
+     * @param fingerprint トランスフォーマーのバージョンと、変換に影響するすべての構成を識別する文字列
+     * @param cacheDirectory 変換の結果を保存するディレクトリ、存在しない場合は作成されます
+     */
+    public CachingClassTransformer(List<? extends ClassTransformer> transformers, String persistenceUnitName, String fingerprint, File cacheDirectory) {
+        this(transformers, persistenceUnitName, fingerprint, cacheDirectory, DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * 指定されたエグゼキュータで並行して変換を行うトランスフォーマーを作成します。
+     * 
+     * @param transformers 順に適用されるトランスフォーマー
+     * @param persistenceUnitName トランスフォーマーを登録した永続化ユニットの名前
+     * @param fingerprint トランスフォーマーのバージョンと、変換に影響するすべての構成を識別する文字列
+     * @param cacheDirectory 変換の結果を保存するディレクトリ、存在しない場合は作成されます
+     * @param executor {@link #transformAll}で変換を行うエグゼキュータ
+     */
+    public CachingClassTransformer(List<? extends ClassTransformer> transformers, String persistenceUnitName, String fingerprint,
+                                   File cacheDirectory, Executor executor) {
+        if (transformers == null || persistenceUnitName == null || fingerprint == null || cacheDirectory == null || executor == null) {
+            throw new NullPointerException();
+        }
+        this.transformers = Collections.unmodifiableList(new ArrayList<ClassTransformer>(transformers));
+        this.persistenceUnitName = persistenceUnitName;
+        // the lengths keep the unit name and the fingerprint apart
+        StringBuilder key = new StringBuilder()
+                .append(persistenceUnitName.length()).append(':').append(persistenceUnitName)
+                .append(fingerprint.length()).append(':').append(fingerprint);
+        for (ClassTransformer transformer : this.transformers) {
+            key.append('\n').append(transformer.getClass().getName());
+        }
+        this.keyPrefix = key.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+        this.cacheDirectory = cacheDirectory;
+        this.executor = executor;
+    }
+
+    /**
+     * 順に適用されるトランスフォーマーを返します。
+     * 
+     * @return トランスフォーマーの変更できないリスト
+     */
+    public List<ClassTransformer> getTransformers() {
+        return transformers;
+    }
+
+    /**
+     * キャッシュされた変換の結果を返すか、すべてのトランスフォーマーを順に適用して結果をキャッシュします。
+     * 
+     * <p> 各トランスフォーマーには前のトランスフォーマーの変換の結果が渡されます。
+     * 
+     * @return 変換されたクラスファイル、どのトランスフォーマーも変換を行わなかった場合はnull
+     * @throws IllegalClassFormatException いずれかのトランスフォーマーが例外をスローした場合
+     */
+    @Override
+    public byte[] transform(ClassLoader loader,
+                            String className,
+                            Class<?> classBeingRedefined,
+                            ProtectionDomain protectionDomain,
+                            byte[] classfileBuffer)
+            throws IllegalClassFormatException {
+        String key = getKey(className, classfileBuffer);
+        File cacheFile = new File(cacheDirectory, key + ".class");
+        byte[] cached = readCache(cacheFile, key);
+        if (cached != null) {
+            return (cached.length == 0) ? null : cached;
+        }
+        byte[] current = classfileBuffer;
+        for (ClassTransformer transformer : transformers) {
+            byte[] transformed;
+            BootstrapEvent event = BootstrapEvent.begin(BootstrapEvent.CLASS_TRANSFORM, persistenceUnitName, transformer.getClass().getName());
+            try {
+                transformed = transformer.transform(loader, className, classBeingRedefined, protectionDomain, current);
+            } finally {
+                event.end();
+            }
+            if (transformed != null) {
+                current = transformed;
+            }
+        }
+        byte[] result = (current != classfileBuffer) ? current : null;
+        writeCache(cacheFile, key, (result != null) ? result : UNCHANGED);
+        return result;
+    }
+
+    /**
+     * 同時に定義される複数のクラスを並行して変換します。
+     * 
+     * @param loader 変換されるクラスの定義されたローダー、ブートストラップローダーの場合はnullでも良い
+     * @param classfileBuffers 内部形式のクラスの名前とクラスファイルのマップ
+     * @param protectionDomain 定義されるクラスの保護ドメイン
+     * @return 内部形式のクラスの名前と、変換されたクラスファイルのマップ。
+     *         変換されなかったクラスは含まれません。
+     * @throws IllegalClassFormatException いずれかのトランスフォーマーが例外をスローした場合
+     */
+    public Map<String, byte[]> transformAll(final ClassLoader loader,
+                                           Map<String, byte[]> classfileBuffers,
+                                           final ProtectionDomain protectionDomain)
+            throws IllegalClassFormatException {
+        Map<String, CompletableFuture<byte[]>> futures = new LinkedHashMap<String, CompletableFuture<byte[]>>();
+        for (final Map.Entry<String, byte[]> entry : classfileBuffers.entrySet()) {
+            futures.put(entry.getKey(), CompletableFuture.supplyAsync(new Supplier<byte[]>() {
+                @Override
+                public byte[] get() {
+                    try {
+                        return transform(loader, entry.getKey(), null, protectionDomain, entry.getValue());
+                    } catch (IllegalClassFormatException e) {
+                        throw new CompletionException(e);
+                    }
+                }
+            }, executor));
+        }
+        Map<String, byte[]> result = new LinkedHashMap<String, byte[]>();
+        for (Map.Entry<String, CompletableFuture<byte[]>> future : futures.entrySet()) {
+            byte[] transformed;
+            try {
+                transformed = future.getValue().join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IllegalClassFormatException) {
+                    throw (IllegalClassFormatException) e.getCause();
+                }
+                throw e;
+            }
+            if (transformed != null) {
+                result.put(future.getKey(), transformed);
+            }
+        }
+        return result;
+    }
+
+    private String getKey(String className, byte[] classfileBuffer) {
+        MessageDigest digest = newDigest();
+        digest.update(keyPrefix);
+        digest.update(String.valueOf(className).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        byte[] hash = digest.digest(classfileBuffer);
+        char[] key = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            key[2 * i] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+            key[2 * i + 1] = HEX_DIGITS[hash[i] & 0xF];
+        }
+        return new String(key);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the checksum stored in front of a cache file. It covers the
+     * key too, so that a file copied to another name is not accepted.
+     */
+    private static byte[] getChecksum(String key, byte[] classfileBuffer, int offset) {
+        MessageDigest digest = newDigest();
+        digest.update(key.getBytes(StandardCharsets.UTF_8));
+        digest.update(classfileBuffer, offset, classfileBuffer.length - offset);
+        return digest.digest();
+    }
+
+    /**
+     * Reads a cache file, or returns null if it does not exist or its
+     * checksum does not match.
+     */
+    private static byte[] readCache(File cacheFile, String key) {
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+        byte[] content;
+        try {
+            InputStream in = new FileInputStream(cacheFile);
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) cacheFile.length());
+                byte[] buffer = new byte[8192];
+                for (int n; (n = in.read(buffer)) >= 0;) {
+                    bytes.write(buffer, 0, n);
+                }
+                content = bytes.toByteArray();
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "javax.persistence.spi::Unable to read " + cacheFile, e);
+            return null;
+        }
+        if (content.length < CHECKSUM_LENGTH
+                || !MessageDigest.isEqual(Arrays.copyOf(content, CHECKSUM_LENGTH), getChecksum(key, content, CHECKSUM_LENGTH))) {
+            LOGGER.log(Level.WARNING, "javax.persistence.spi::Ignoring corrupt " + cacheFile);
+            return null;
+        }
+        return Arrays.copyOfRange(content, CHECKSUM_LENGTH, content.length);
+    }
+
+    /**
+     * Writes a cache file through a temporary file, so that concurrent
+     * readers never see a partially written class.
+     */
+    private void writeCache(File cacheFile, String key, byte[] classfileBuffer) {
+        try {
+            if (!cacheDirectory.isDirectory()) {
+                if (cacheDirectory.mkdirs()) {
+                    // other users must not be able to plant classes
+                    cacheDirectory.setReadable(false, false);
+                    cacheDirectory.setWritable(false, false);
+                    cacheDirectory.setExecutable(false, false);
+                    cacheDirectory.setReadable(true, true);
+                    cacheDirectory.setWritable(true, true);
+                    cacheDirectory.setExecutable(true, true);
+                } else if (!cacheDirectory.isDirectory()) {
+                    throw new IOException("Unable to create " + cacheDirectory);
+                }
+            }
+            File temporaryFile = File.createTempFile(cacheFile.getName(), ".tmp", cacheDirectory);
+            try {
+                OutputStream out = new FileOutputStream(temporaryFile);
+                try {
+                    out.write(getChecksum(key, classfileBuffer, 0));
+                    out.write(classfileBuffer);
+                } finally {
+                    out.close();
+                }
+                if (!temporaryFile.renameTo(cacheFile) && !cacheFile.isFile()) {
+                    throw new IOException("Unable to rename " + temporaryFile + " to " + cacheFile);
+                }
+            } finally {
+                temporaryFile.delete();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "javax.persistence.spi::Unable to write " + cacheFile, e);
+        }
+    }
+}
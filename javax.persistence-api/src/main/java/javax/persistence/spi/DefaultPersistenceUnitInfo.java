@@ -0,0 +1,313 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.persistence.PersistenceException;
+import javax.persistence.SharedCacheMode;
+import javax.persistence.ValidationMode;
+import javax.sql.DataSource;
+
+/**
+ * Immutable PersistenceUnitInfo describing one persistence-unit element of a
+ * persistence.xml file, as read by PersistenceXmlReader.
+ * A unit without a class loader is only used as a template for
+ * withClassLoader.
+ * 
+ * The only mutable state are the transformers registered through
+ * addTransformer. Nothing in this API applies them, so they are merely kept
+ * for the container that defines the classes of the persistence unit. This
+ * is why javax.persistence.Persistence never passes these units to
+ * createContainerEntityManagerFactory: in Java SE the classes are already
+ * loaded, and the provider's weaving would be silently lost.
+ */
+final class DefaultPersistenceUnitInfo implements PersistenceUnitInfo {
+
+    private static final Logger LOGGER = Logger.getLogger("javax.persistence.spi");
+
+    private final String persistenceUnitName;
+    private final String persistenceProviderClassName;
+    private final PersistenceUnitTransactionType transactionType;
+    private final String jtaDataSourceName;
+    private final String nonJtaDataSourceName;
+    private final List<String> mappingFileNames;
+    private final List<String> jarFileNames;
+    private final List<URL> jarFileUrls;
+    private final URL persistenceUnitRootUrl;
+    private final List<String> managedClassNames;
+    private final boolean excludeUnlistedClasses;
+    private final SharedCacheMode sharedCacheMode;
+    private final ValidationMode validationMode;
+    private final Properties properties;
+    private final String persistenceXMLSchemaVersion;
+    private final ClassLoader classLoader;
+    private final List<ClassTransformer> transformers = new CopyOnWriteArrayList<ClassTransformer>();
+
+    /**
+     * Creates the unit. The jar file names are resolved against the root URL
+     * of the persistence unit, as the jar-file elements are relative to it.
+     */
+    DefaultPersistenceUnitInfo(String persistenceUnitName,
+                               String persistenceProviderClassName,
+                               PersistenceUnitTransactionType transactionType,
+                               String jtaDataSourceName,
+                               String nonJtaDataSourceName,
+                               List<String> mappingFileNames,
+                               List<String> jarFileNames,
+                               URL persistenceUnitRootUrl,
+                               List<String> managedClassNames,
+                               boolean excludeUnlistedClasses,
+                               SharedCacheMode sharedCacheMode,
+                               ValidationMode validationMode,
+                               Properties properties,
+                               String persistenceXMLSchemaVersion,
+                               ClassLoader classLoader) {
+        this.persistenceUnitName = persistenceUnitName;
+        this.persistenceProviderClassName = persistenceProviderClassName;
+        this.transactionType = transactionType;
+        this.jtaDataSourceName = jtaDataSourceName;
+        this.nonJtaDataSourceName = nonJtaDataSourceName;
+        this.mappingFileNames = Collections.unmodifiableList(new ArrayList<String>(mappingFileNames));
+        this.jarFileNames = Collections.unmodifiableList(new ArrayList<String>(jarFileNames));
+        this.jarFileUrls = Collections.unmodifiableList(resolveJarFileUrls(persistenceUnitRootUrl, jarFileNames));
+        this.persistenceUnitRootUrl = persistenceUnitRootUrl;
+        this.managedClassNames = Collections.unmodifiableList(new ArrayList<String>(managedClassNames));
+        this.excludeUnlistedClasses = excludeUnlistedClasses;
+        this.sharedCacheMode = sharedCacheMode;
+        this.validationMode = validationMode;
+        this.properties = new Properties();
+        this.properties.putAll(properties);
+        this.persistenceXMLSchemaVersion = persistenceXMLSchemaVersion;
+        this.classLoader = classLoader;
+    }
+
+    private static List<URL> resolveJarFileUrls(URL root, List<String> jarFileNames) {
+        List<URL> urls = new ArrayList<URL>(jarFileNames.size());
+        for (String jarFileName : jarFileNames) {
+            try {
+                urls.add((root != null) ? new URL(root, jarFileName) : new URL(jarFileName));
+            } catch (MalformedURLException e) {
+                throw new PersistenceException("Invalid jar-file " + jarFileName + " in persistence unit root " + root, e);
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * Returns the root URL of the persistence unit described by the given
+     * resource, for example META-INF/persistence.xml. Resources inside jar
+     * files give the URL of the jar file itself.
+     */
+    static URL getPersistenceUnitRootUrl(URL resource, String resourceName) {
+        String spec = resource.toExternalForm();
+        if (!spec.endsWith(resourceName)) {
+            throw new PersistenceException("Unexpected location of " + resourceName + ": " + spec);
+        }
+        spec = spec.substring(0, spec.length() - resourceName.length());
+        if ("jar".equals(resource.getProtocol()) && spec.endsWith("!/")) {
+            spec = spec.substring("jar:".length(), spec.length() - "!/".length());
+        }
+        try {
+            return new URL(spec);
+        } catch (MalformedURLException e) {
+            throw new PersistenceException("Unable to determine the persistence unit root of " + resource, e);
+        }
+    }
+
+    /**
+     * Returns the transformers registered by the provider so far.
+     */
+    List<ClassTransformer> getTransformers() {
+        return Collections.unmodifiableList(transformers);
+    }
+
+    /**
+     * Returns a copy of this unit bound to another class loader.
+     */
+    DefaultPersistenceUnitInfo withClassLoader(ClassLoader loader) {
+        return new DefaultPersistenceUnitInfo(persistenceUnitName, persistenceProviderClassName, transactionType,
+                jtaDataSourceName, nonJtaDataSourceName, mappingFileNames, jarFileNames, persistenceUnitRootUrl,
+                managedClassNames, excludeUnlistedClasses, sharedCacheMode, validationMode, properties,
+                persistenceXMLSchemaVersion, loader);
+    }
+
+    public String getPersistenceUnitName() {
+        return persistenceUnitName;
+    }
+
+    public String getPersistenceProviderClassName() {
+        return persistenceProviderClassName;
+    }
+
+    public PersistenceUnitTransactionType getTransactionType() {
+        return transactionType;
+    }
+
+    public DataSource getJtaDataSource() {
+        return lookupDataSource(jtaDataSourceName);
+    }
+
+    public DataSource getNonJtaDataSource() {
+        return lookupDataSource(nonJtaDataSourceName);
+    }
+
+    /**
+     * Looks the data source up in JNDI. Java SE environments often have no
+     * naming service at all, in which case the provider gets null and falls
+     * back to its JDBC properties.
+     */
+    private static DataSource lookupDataSource(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return (DataSource) new InitialContext().lookup(name);
+        } catch (NamingException e) {
+            LOGGER.log(Level.FINE, "javax.persistence.spi::Unable to look up data source " + name, e);
+            return null;
+        }
+    }
+
+    public List<String> getMappingFileNames() {
+        return mappingFileNames;
+    }
+
+    public List<URL> getJarFileUrls() {
+        return jarFileUrls;
+    }
+
+    public URL getPersistenceUnitRootUrl() {
+        return persistenceUnitRootUrl;
+    }
+
+    public List<String> getManagedClassNames() {
+        return managedClassNames;
+    }
+
+    public boolean excludeUnlistedClasses() {
+        return excludeUnlistedClasses;
+    }
+
+    public SharedCacheMode getSharedCacheMode() {
+        return sharedCacheMode;
+    }
+
+    public ValidationMode getValidationMode() {
+        return validationMode;
+    }
+
+    /**
+     * Returns a copy, so that providers adding their defaults do not change
+     * the unit seen by others.
+     */
+    public Properties getProperties() {
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        return copy;
+    }
+
+    public String getPersistenceXMLSchemaVersion() {
+        return persistenceXMLSchemaVersion;
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    public void addTransformer(ClassTransformer transformer) {
+        transformers.add(transformer);
+    }
+
+    /**
+     * Creates a child-first loader over the class path of getClassLoader(),
+     * so that classes loaded by the provider stay invisible to the
+     * application, while everything else, such as the javax.persistence
+     * annotations and the dependencies of the application, is still found
+     * through getClassLoader(). If that class path is unknown, as for the
+     * application class loader of Java 9 and later, the persistence unit root
+     * and its jar files are loaded child-first.
+     * 
+     * The returned loader is owned by the caller of
+     * createContainerEntityManagerFactory, as providers may only use it
+     * during that call. It is a URLClassLoader, which the caller may close
+     * afterwards; otherwise its jar files are closed once it is garbage
+     * collected.
+     */
+    public ClassLoader getNewTempClassLoader() {
+        ClassLoader parent = (classLoader != null) ? classLoader : ClassLoader.getSystemClassLoader();
+        URL[] urls;
+        if (parent instanceof URLClassLoader) {
+            urls = ((URLClassLoader) parent).getURLs();
+        } else {
+            List<URL> unitUrls = new ArrayList<URL>(jarFileUrls.size() + 1);
+            if (persistenceUnitRootUrl != null) {
+                unitUrls.add(persistenceUnitRootUrl);
+            }
+            unitUrls.addAll(jarFileUrls);
+            urls = unitUrls.toArray(new URL[unitUrls.size()]);
+        }
+        return new TempClassLoader(urls, parent);
+    }
+
+    public String toString() {
+        return "PersistenceUnitInfo[" + persistenceUnitName + ", " + persistenceUnitRootUrl + "]";
+    }
+
+    /**
+     * Loads the classes found on its own URLs itself before asking the
+     * parent. The Java SE classes and the classes of this API are always
+     * taken from the parent, so that the provider sees the same annotation
+     * types as the application.
+     */
+    private static final class TempClassLoader extends URLClassLoader {
+
+        static {
+            ClassLoader.registerAsParallelCapable();
+        }
+
+        TempClassLoader(URL[] urls, ClassLoader parent) {
+            super(urls, parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.startsWith("java.") || name.startsWith("javax.persistence.")) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    try {
+                        c = findClass(name);
+                    } catch (ClassNotFoundException e) {
+                        return super.loadClass(name, resolve);
+                    }
+                }
+                if (resolve) {
+                    resolveClass(c);
+                }
+                return c;
+            }
+        }
+    }
+}
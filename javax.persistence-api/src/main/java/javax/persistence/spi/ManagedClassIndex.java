@@ -0,0 +1,620 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.annotation.Annotation;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.persistence.Converter;
+import javax.persistence.Embeddable;
+import javax.persistence.Entity;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.PersistenceException;
+
+/**
+ * ビルド時に作成される管理クラスのアノテーションインデックスの読み込みと書き込みを行います。
+ * 
+ * <p> アノテーションインデックスは、永続化ユニットのルートまたはJARファイルに含まれるクラスのうち、
+ * {@link Entity}、{@link Embeddable}、{@link MappedSuperclass}、{@link Converter}が付与されたクラスの名前を
+ * コンパクトなバイナリ形式で保持し、同じルートの<code>META-INF/persistence-classes.idx</code>に配置されます。
+ * {@link PersistenceUnitInfo#excludeUnlistedClasses}が<code>false</code>の場合、
+ * プロバイダはすべてのクラスファイルを開いて解析する代わりに、このインデックスから管理クラスを知ることができます。
+ * ディレクトリに配置されたインデックスはメモリーマップされて読み込まれます。
+ * 
+ * <p> インデックスはビルド時にこのクラスを実行して作成します。引数はクラスファイルを含むディレクトリです。
+ * <pre>
+ *    java -cp javax.persistence-api.jar javax.persistence.spi.ManagedClassIndex target/classes
+ * </pre>
+ * インデックスには、作成時のクラスファイルの名前と大きさのダイジェストが記録されます。
+ * 読み込み時にはクラスファイルを開かずにダイジェストを計算し直し、一致しない場合は古いインデックスとして無視します。
+ * クラスファイルの名前と大きさは、ディレクトリがJARファイルにパッケージされても変わりません。
+ * ルートのクラスファイルを列挙できない場合、ダイジェストは検査されません。
+ * 
+ * @since Java Persistence 2.3
+ */
+public final class ManagedClassIndex {
+
+    /**
+     * 永続化ユニットのルートまたはJARファイルに対するアノテーションインデックスの位置です。
+     */
+    public static final String INDEX_RESOURCE = "META-INF/persistence-classes.idx";
+
+    private static final Logger LOGGER = Logger.getLogger("javax.persistence.spi");
+
+    /**
+     * "JPAC"
+     */
+    private static final int MAGIC = 0x4A504143;
+
+    private static final int FORMAT_VERSION = 2;
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * The indexed annotations. The index of an annotation in this array is
+     * its bit in the flags written for each class.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Class<? extends Annotation>[] ANNOTATION_TYPES = new Class[] {
+        Entity.class, Embeddable.class, MappedSuperclass.class, Converter.class
+    };
+
+    private final String[] classNames;
+
+    private final byte[] flags;
+
+    private ManagedClassIndex(String[] classNames, byte[] flags) {
+        this.classNames = classNames;
+        this.flags = flags;
+    }
+
+    /**
+     * インデックスに含まれるすべてのクラスの名前を返します。
+     * 
+     * @return クラスの名前のリスト
+     */
+    public List<String> getClassNames() {
+        List<String> names = new ArrayList<String>(classNames.length);
+        Collections.addAll(names, classNames);
+        return names;
+    }
+
+    /**
+     * 指定されたアノテーションが付与されたクラスの名前を返します。
+     * 
+     * @param annotationType {@link Entity}、{@link Embeddable}、{@link MappedSuperclass}または{@link Converter}
+     * @return クラスの名前のリスト
+     * @throws IllegalArgumentException インデックスに含まれないアノテーションが指定された場合
+     */
+    public List<String> getClassNames(Class<? extends Annotation> annotationType) {
+        int flag = getFlag(annotationType);
+        if (flag == 0) {
+            throw new IllegalArgumentException(annotationType + " is not indexed");
+        }
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < classNames.length; i++) {
+            if ((flags[i] & flag) != 0) {
+                names.add(classNames[i]);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 指定された永続化ユニットのルートまたはJARファイルのアノテーションインデックスを読み込みます。
+     * 
+     * @param rootUrl 永続化ユニットのルートまたはJARファイルのURL
+     * @return アノテーションインデックス、存在しないか古い場合は<code>null</code>
+     * @throws PersistenceException インデックスを読み込めなかった場合
+     */
+    public static ManagedClassIndex read(URL rootUrl) {
+        try {
+            ByteBuffer buffer = readIndex(rootUrl);
+            return (buffer != null) ? read(rootUrl, buffer) : null;
+        } catch (IOException e) {
+            throw new PersistenceException("Unable to read " + INDEX_RESOURCE + " of " + rootUrl, e);
+        }
+    }
+
+    /**
+     * 指定された永続化ユニットの管理クラスを、永続化ユニットのルートと{@link PersistenceUnitInfo#getJarFileUrls}の
+     * アノテーションインデックスから探します。
+     * 
+     * <p> {@link PersistenceUnitInfo#getManagedClassNames}で明示されたクラスは含まれません。
+     * 
+     * @param unit 永続化ユニット
+     * @return 管理クラスの名前のリスト、
+     *         いずれかのルートまたはJARファイルにインデックスが存在しないか古い場合は<code>null</code>
+     * @throws PersistenceException インデックスを読み込めなかった場合
+     */
+    public static List<String> getManagedClassNames(PersistenceUnitInfo unit) {
+        List<URL> rootUrls = new ArrayList<URL>();
+        if (unit.getPersistenceUnitRootUrl() != null) {
+            rootUrls.add(unit.getPersistenceUnitRootUrl());
+        }
+        rootUrls.addAll(unit.getJarFileUrls());
+        List<String> names = new ArrayList<String>();
+        for (URL rootUrl : rootUrls) {
+            ManagedClassIndex index = read(rootUrl);
+            if (index == null) {
+                return null;
+            }
+            Collections.addAll(names, index.classNames);
+        }
+        return names;
+    }
+
+    /**
+     * 指定されたディレクトリまたはJARファイルに含まれるクラスファイルのアノテーションインデックスを書き込みます。
+     * 
+     * @param root クラスファイルを含むディレクトリまたはJARファイル
+     * @param out インデックスの書き込み先、このメソッドはストリームをクローズしません
+     * @throws IOException クラスファイルを読み込めなかった場合、またはインデックスを書き込めなかった場合
+     */
+    public static void write(File root, OutputStream out) throws IOException {
+        Map<String, Integer> classes = new TreeMap<String, Integer>();
+        Map<String, Long> classFiles = new TreeMap<String, Long>();
+        if (root.isDirectory()) {
+            scanDirectory(root, "", classes, classFiles);
+        } else {
+            scanJar(root, classes, classFiles);
+        }
+        byte[] digest = digest(classFiles);
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeShort(FORMAT_VERSION);
+        data.writeShort(digest.length);
+        data.write(digest);
+        data.writeInt(classes.size());
+        for (Map.Entry<String, Integer> entry : classes.entrySet()) {
+            data.writeByte(entry.getValue());
+            data.writeUTF(entry.getKey());
+        }
+        data.flush();
+    }
+
+    /**
+     * クラスファイルを含むディレクトリに、同じディレクトリの<code>META-INF/persistence-classes.idx</code>を作成します。
+     * 
+     * @param args クラスファイルを含むディレクトリ
+     * @throws IOException インデックスを書き込めなかった場合
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: java javax.persistence.spi.ManagedClassIndex <class directory>...");
+            System.exit(1);
+        }
+        for (String root : args) {
+            File index = new File(root, INDEX_RESOURCE);
+            index.getParentFile().mkdirs();
+            OutputStream out = new FileOutputStream(index);
+            try {
+                write(new File(root), out);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private static int getFlag(Class<? extends Annotation> annotationType) {
+        for (int i = 0; i < ANNOTATION_TYPES.length; i++) {
+            if (ANNOTATION_TYPES[i] == annotationType) {
+                return 1 << i;
+            }
+        }
+        return 0;
+    }
+
+    private static int getFlag(String descriptor) {
+        for (int i = 0; i < ANNOTATION_TYPES.length; i++) {
+            String name = ANNOTATION_TYPES[i].getName();
+            if (descriptor.length() == name.length() + 2
+                    && descriptor.startsWith(name.replace('.', '/'), 1)) {
+                return 1 << i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the index of a root, memory mapped if the root is a directory.
+     */
+    private static ByteBuffer readIndex(URL rootUrl) throws IOException {
+        if ("file".equals(rootUrl.getProtocol())) {
+            File root;
+            try {
+                root = new File(rootUrl.toURI());
+            } catch (URISyntaxException e) {
+                root = new File(rootUrl.getPath());
+            }
+            if (root.isDirectory()) {
+                File index = new File(root, INDEX_RESOURCE);
+                if (!index.isFile()) {
+                    return null;
+                }
+                RandomAccessFile file = new RandomAccessFile(index, "r");
+                try {
+                    // the mapping stays valid after the channel is closed
+                    return file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+                } finally {
+                    file.close();
+                }
+            }
+        }
+        String root = rootUrl.toExternalForm();
+        URL index = root.endsWith("/") ? new URL(rootUrl, INDEX_RESOURCE) : new URL("jar:" + root + "!/" + INDEX_RESOURCE);
+        InputStream in;
+        try {
+            URLConnection connection = index.openConnection();
+            // do not keep jar files open or locked
+            connection.setUseCaches(false);
+            in = connection.getInputStream();
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) >= 0;) {
+                bytes.write(buffer, 0, n);
+            }
+            return ByteBuffer.wrap(bytes.toByteArray());
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads an index. An index written by a newer version of this class is
+     * treated as missing, so that the classes are scanned the usual way.
+     */
+    private static ManagedClassIndex read(URL rootUrl, ByteBuffer buffer) throws IOException {
+        DataInputStream data = new DataInputStream(new ByteBufferInputStream(buffer));
+        if (data.readInt() != MAGIC) {
+            throw new PersistenceException(INDEX_RESOURCE + " of " + rootUrl + " is not an annotation index");
+        }
+        int version = data.readUnsignedShort();
+        if (version != FORMAT_VERSION) {
+            LOGGER.log(Level.WARNING, "javax.persistence.spi::Ignoring " + INDEX_RESOURCE + " of " + rootUrl + " with unsupported format version " + version);
+            return null;
+        }
+        byte[] digest = new byte[data.readUnsignedShort()];
+        data.readFully(digest);
+        byte[] actualDigest = digest(rootUrl);
+        if (actualDigest != null && !MessageDigest.isEqual(digest, actualDigest)) {
+            LOGGER.log(Level.WARNING, "javax.persistence.spi::Ignoring " + INDEX_RESOURCE + " of " + rootUrl + " which is older than its classes");
+            return null;
+        }
+        int count = data.readInt();
+        String[] classNames = new String[count];
+        byte[] flags = new byte[count];
+        for (int i = 0; i < count; i++) {
+            flags[i] = data.readByte();
+            classNames[i] = data.readUTF();
+        }
+        return new ManagedClassIndex(classNames, flags);
+    }
+
+    /**
+     * Returns the digest of the class files of a root, or null if they cannot
+     * be listed.
+     */
+    private static byte[] digest(URL rootUrl) throws IOException {
+        Map<String, Long> classFiles = new TreeMap<String, Long>();
+        if ("file".equals(rootUrl.getProtocol())) {
+            File root;
+            try {
+                root = new File(rootUrl.toURI());
+            } catch (URISyntaxException e) {
+                root = new File(rootUrl.getPath());
+            }
+            if (root.isDirectory()) {
+                scanDirectory(root, "", null, classFiles);
+            } else {
+                scanJar(root, null, classFiles);
+            }
+            return digest(classFiles);
+        }
+        String root = rootUrl.toExternalForm();
+        if (root.endsWith("/")) {
+            // a directory that cannot be listed
+            return null;
+        }
+        URLConnection connection = new URL("jar:" + root + "!/").openConnection();
+        if (!(connection instanceof JarURLConnection)) {
+            return null;
+        }
+        connection.setUseCaches(false);
+        JarFile jarFile = ((JarURLConnection) connection).getJarFile();
+        try {
+            listJar(jarFile, classFiles);
+        } finally {
+            jarFile.close();
+        }
+        return digest(classFiles);
+    }
+
+    /**
+     * Returns the digest of the sorted names and sizes of class files. The
+     * size changes with almost every change of a class, and unlike the time
+     * stamp it is kept when a directory is packaged into a jar file.
+     */
+    private static byte[] digest(Map<String, Long> classFiles) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer size = ByteBuffer.allocate(8);
+        for (Map.Entry<String, Long> classFile : classFiles.entrySet()) {
+            digest.update(classFile.getKey().getBytes(StandardCharsets.UTF_8));
+            size.clear();
+            size.putLong(classFile.getValue());
+            digest.update(size.array());
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Lists the class files of a directory into classFiles, and adds the
+     * annotated ones to classes unless it is null.
+     */
+    private static void scanDirectory(File directory, String packagePrefix, Map<String, Integer> classes, Map<String, Long> classFiles) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Unable to list " + directory);
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                if (!(packagePrefix.isEmpty() && name.equals("META-INF"))) {
+                    scanDirectory(file, packagePrefix + name + ".", classes, classFiles);
+                }
+            } else if (isClassFile(name)) {
+                String className = packagePrefix + name.substring(0, name.length() - ".class".length());
+                classFiles.put(className, file.length());
+                if (classes != null) {
+                    InputStream in = new FileInputStream(file);
+                    try {
+                        addClass(className, in, classes);
+                    } finally {
+                        in.close();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists the class files of a jar file into classFiles, and adds the
+     * annotated ones to classes unless it is null.
+     */
+    private static void scanJar(File jar, Map<String, Integer> classes, Map<String, Long> classFiles) throws IOException {
+        JarFile jarFile = new JarFile(jar);
+        try {
+            if (classes == null) {
+                // the central directory is enough
+                listJar(jarFile, classFiles);
+                return;
+            }
+            for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
+                JarEntry entry = entries.nextElement();
+                String className = getClassName(entry);
+                if (className != null) {
+                    classFiles.put(className, entry.getSize());
+                    InputStream in = jarFile.getInputStream(entry);
+                    try {
+                        addClass(className, in, classes);
+                    } finally {
+                        in.close();
+                    }
+                }
+            }
+        } finally {
+            jarFile.close();
+        }
+    }
+
+    private static void listJar(JarFile jarFile, Map<String, Long> classFiles) {
+        for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
+            JarEntry entry = entries.nextElement();
+            String className = getClassName(entry);
+            if (className != null) {
+                classFiles.put(className, entry.getSize());
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the class of a jar entry, or null if the entry is
+     * not a class file which may be a managed class.
+     */
+    private static String getClassName(JarEntry entry) {
+        String name = entry.getName();
+        // versioned classes of multi-release jars are under META-INF
+        if (!name.startsWith("META-INF/") && isClassFile(name)) {
+            return name.substring(0, name.length() - ".class".length()).replace('/', '.');
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether a file name is a class file which may be a managed
+     * class, excluding module-info and package-info.
+     */
+    private static boolean isClassFile(String name) {
+        return name.endsWith(".class") && name.indexOf('-') < 0;
+    }
+
+    private static void addClass(String className, InputStream in, Map<String, Integer> classes) throws IOException {
+        int flags = readAnnotationFlags(new DataInputStream(new BufferedInputStream(in)));
+        if (flags != 0) {
+            classes.put(className, flags);
+        }
+    }
+
+    /**
+     * Reads the flags of the indexed annotations in the
+     * RuntimeVisibleAnnotations attribute of a class file.
+     */
+    private static int readAnnotationFlags(DataInputStream data) throws IOException {
+        if (data.readInt() != 0xCAFEBABE) {
+            throw new IOException("Not a class file");
+        }
+        // minor and major version
+        data.readInt();
+        int constantCount = data.readUnsignedShort();
+        String[] utf8 = new String[constantCount];
+        for (int i = 1; i < constantCount; i++) {
+            int tag = data.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8[i] = data.readUTF();
+                    break;
+                case 7: // Class
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    data.readUnsignedShort();
+                    break;
+                case 15: // MethodHandle
+                    data.readUnsignedByte();
+                    data.readUnsignedShort();
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    data.readInt();
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    data.readLong();
+                    // takes two entries
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+        // access flags, this class and super class
+        skip(data, 6);
+        skip(data, 2 * data.readUnsignedShort());
+        // fields and methods
+        for (int members = 0; members < 2; members++) {
+            for (int i = data.readUnsignedShort(); i > 0; i--) {
+                // access flags, name and descriptor
+                skip(data, 6);
+                skipAttributes(data);
+            }
+        }
+        int flags = 0;
+        for (int i = data.readUnsignedShort(); i > 0; i--) {
+            String name = utf8[data.readUnsignedShort()];
+            int length = data.readInt();
+            if (!"RuntimeVisibleAnnotations".equals(name)) {
+                skip(data, length);
+                continue;
+            }
+            for (int j = data.readUnsignedShort(); j > 0; j--) {
+                flags |= getFlag(utf8[data.readUnsignedShort()]);
+                skipElementValuePairs(data);
+            }
+        }
+        return flags;
+    }
+
+    private static void skipAttributes(DataInputStream data) throws IOException {
+        for (int i = data.readUnsignedShort(); i > 0; i--) {
+            data.readUnsignedShort();
+            skip(data, data.readInt());
+        }
+    }
+
+    private static void skipElementValuePairs(DataInputStream data) throws IOException {
+        for (int i = data.readUnsignedShort(); i > 0; i--) {
+            data.readUnsignedShort();
+            skipElementValue(data);
+        }
+    }
+
+    private static void skipElementValue(DataInputStream data) throws IOException {
+        int tag = data.readUnsignedByte();
+        switch (tag) {
+            case 'e':
+                skip(data, 4);
+                break;
+            case '@':
+                data.readUnsignedShort();
+                skipElementValuePairs(data);
+                break;
+            case '[':
+                for (int i = data.readUnsignedShort(); i > 0; i--) {
+                    skipElementValue(data);
+                }
+                break;
+            default:
+                // constants and classes
+                skip(data, 2);
+                break;
+        }
+    }
+
+    private static void skip(DataInputStream data, int length) throws IOException {
+        while (length > 0) {
+            int skipped = data.skipBytes(length);
+            if (skipped <= 0) {
+                // skipBytes does not report the end of the stream
+                data.readByte();
+                skipped = 1;
+            }
+            length -= skipped;
+        }
+    }
+}
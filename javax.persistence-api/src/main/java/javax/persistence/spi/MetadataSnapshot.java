@@ -0,0 +1,419 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.persistence.PersistenceException;
+
+/**
+ * 永続化プロバイダが構築したメタデータのスナップショットの読み込みと書き込みを行います。
+ * 
+ * <p> スナップショットはバージョン付きのヘッダーと、永続化プロバイダ固有の形式のペイロードからなるファイルです。
+ * ヘッダーは永続化ユニットの名前、プロバイダのクラス名とペイロードの形式のバージョン、
+ * メタデータの元になったクラスファイルと<code>orm.xml</code>などのリソースの名前とそれらの内容のハッシュ、
+ * およびクラスローダーから見えるすべての<code>META-INF/persistence.xml</code>、{@link ManagedClassIndex#INDEX_RESOURCE}と
+ * <code>META-INF/orm.xml</code>のURLと内容のハッシュを保持します。
+ * 
+ * <p> 永続化プロバイダは{@link javax.persistence.EntityManagerFactory#writeSnapshot}の実装で
+ * {@link #write}を呼び出し、構築したメタモデル、マッピングおよび名前付きクエリをペイロードとして書き込みます。
+ * 次回の起動時に{@link #SNAPSHOT_PROPERTY}プロパティが指定されていれば、{@link #read(Map, String, String, String, ClassLoader)}で
+ * スナップショットを読み込み、アノテーションや<code>orm.xml</code>を読み込む代わりにペイロードからメタデータを再構築します。
+ * いずれかのリソースの内容が変わった場合やプロバイダが変わった場合、スナップショットは無効になり、読み込まれません。
+ * 永続化ユニットのルートやJARファイルが追加または削除された場合、マッピングファイルやJARファイルの指定が変わった場合、
+ * およびアノテーションのインデックスが更新されてエンティティが追加された場合も同様です。
+ * 
+ * <p> スナップショットのファイルはメモリーマップされて読み込まれます。
+ * 
+ * @since Java Persistence 2.3
+ */
+public final class MetadataSnapshot {
+
+    /**
+     * スナップショットのファイルのパスを指定するプロパティです。
+     * 値は{@link String}または{@link Path}です。
+     */
+    public static final String SNAPSHOT_PROPERTY = "javax.persistence.bootstrap.snapshot";
+
+    private static final Logger LOGGER = Logger.getLogger("javax.persistence.spi");
+
+    /**
+     * "JPAS"
+     */
+    private static final int MAGIC = 0x4A504153;
+
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * Resources which determine the set of persistence units, managed classes
+     * and mapping files, hashed with their URLs whether or not they are listed.
+     */
+    private static final String[] RESOURCE_SET_NAMES = {
+            PersistenceXmlReader.PERSISTENCE_XML, ManagedClassIndex.INDEX_RESOURCE, "META-INF/orm.xml" };
+
+    private final String persistenceUnitName;
+
+    private final String providerClassName;
+
+    private final String providerVersion;
+
+    private final List<String> resourceNames;
+
+    private final byte[] resourceHash;
+
+    private final byte[] resourceSetHash;
+
+    private final ByteBuffer payload;
+
+    private MetadataSnapshot(String persistenceUnitName, String providerClassName, String providerVersion,
+            List<String> resourceNames, byte[] resourceHash, byte[] resourceSetHash, ByteBuffer payload) {
+        this.persistenceUnitName = persistenceUnitName;
+        this.providerClassName = providerClassName;
+        this.providerVersion = providerVersion;
+        this.resourceNames = Collections.unmodifiableList(resourceNames);
+        this.resourceHash = resourceHash;
+        this.resourceSetHash = resourceSetHash;
+        this.payload = payload;
+    }
+
+    /**
+     * 永続化ユニットの名前を返します。
+     * 
+     * @return 永続化ユニットの名前
+     */
+    public String getPersistenceUnitName() {
+        return persistenceUnitName;
+    }
+
+    /**
+     * スナップショットを書き込んだ永続化プロバイダのクラス名を返します。
+     * 
+     * @return 永続化プロバイダのクラス名
+     */
+    public String getProviderClassName() {
+        return providerClassName;
+    }
+
+    /**
+     * 永続化プロバイダが定めるペイロードの形式のバージョンを返します。
+     * 
+     * @return ペイロードの形式のバージョン
+     */
+    public String getProviderVersion() {
+        return providerVersion;
+    }
+
+    /**
+     * メタデータの元になったリソースの名前を返します。
+     * 
+     * @return リソースの名前の変更できないリスト
+     */
+    public List<String> getResourceNames() {
+        return resourceNames;
+    }
+
+    /**
+     * 永続化プロバイダ固有の形式のペイロードを返します。
+     * 
+     * @return 読み込み専用のバッファー、位置は0
+     */
+    public ByteBuffer getPayload() {
+        return payload.duplicate();
+    }
+
+    /**
+     * メタデータの元になったすべてのリソースが、スナップショットが書き込まれたときと同じ内容かどうかを返します。
+     * 
+     * <p> クラスローダーから見える<code>META-INF/persistence.xml</code>、{@link ManagedClassIndex#INDEX_RESOURCE}と
+     * <code>META-INF/orm.xml</code>のURLと内容も、スナップショットが書き込まれたときと同じである必要があります。
+     * 
+     * @param loader リソースを読み込むクラスローダー、システムクラスローダーの場合は<code>null</code>
+     * @return すべてのリソースが存在し、内容とリソースのセットが変わっていない場合は<code>true</code>
+     */
+    public boolean isValid(ClassLoader loader) {
+        try {
+            return Arrays.equals(resourceHash, hash(resourceNames, loader))
+                    && Arrays.equals(resourceSetHash, hashResourceSet(loader));
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "javax.persistence.spi::Unable to read the resources of the snapshot of " + persistenceUnitName, e);
+            return false;
+        }
+    }
+
+    /**
+     * スナップショットを書き込みます。
+     * 
+     * <p> ファイルは一時ファイルを経由して置き換えられるため、同時に読み込まれていても不完全な内容が読み込まれることはありません。
+     * 
+     * @param file スナップショットのファイル
+     * @param persistenceUnitName 永続化ユニットの名前
+     * @param providerClassName 永続化プロバイダのクラス名
+     * @param providerVersion 永続化プロバイダが定めるペイロードの形式のバージョン
+     * @param resourceNames メタデータの元になったクラスファイルや<code>orm.xml</code>などのリソースの名前、
+     *                      例えば<code>com/example/Order.class</code>
+     * @param loader リソースを読み込むクラスローダー、システムクラスローダーの場合は<code>null</code>
+     * @param payload 永続化プロバイダ固有の形式のペイロード、残りのバイトが書き込まれます
+     * @throws IOException スナップショットを書き込めなかった場合、またはリソースを読み込めなかった場合
+     */
+    public static void write(Path file, String persistenceUnitName, String providerClassName, String providerVersion,
+            Collection<String> resourceNames, ClassLoader loader, ByteBuffer payload) throws IOException {
+        List<String> names = new ArrayList<String>(new TreeSet<String>(resourceNames));
+        byte[] hash = hash(names, loader);
+        byte[] resourceSetHash = hashResourceSet(loader);
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE);
+            try {
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new ChannelOutputStream(channel)));
+                data.writeInt(MAGIC);
+                data.writeShort(FORMAT_VERSION);
+                data.writeUTF(persistenceUnitName);
+                data.writeUTF(providerClassName);
+                data.writeUTF(providerVersion);
+                data.writeInt(names.size());
+                for (String name : names) {
+                    data.writeUTF(name);
+                }
+                data.write(hash);
+                data.write(resourceSetHash);
+                data.writeLong(payload.remaining());
+                data.flush();
+                ByteBuffer remaining = payload.duplicate();
+                while (remaining.hasRemaining()) {
+                    channel.write(remaining);
+                }
+            } finally {
+                channel.close();
+            }
+            try {
+                Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * スナップショットを読み込みます。リソースの内容は検査されません。
+     * 
+     * @param file スナップショットのファイル
+     * @return スナップショット
+     * @throws IOException ファイルを読み込めなかった場合、またはファイルがスナップショットでない場合
+     */
+    public static MetadataSnapshot read(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        ByteBuffer buffer;
+        try {
+            // the mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            channel.close();
+        }
+        DataInputStream data = new DataInputStream(new ByteBufferInputStream(buffer));
+        if (data.readInt() != MAGIC) {
+            throw new IOException(file + " is not a metadata snapshot");
+        }
+        int version = data.readUnsignedShort();
+        if (version != FORMAT_VERSION) {
+            throw new IOException(file + " has unsupported format version " + version);
+        }
+        String persistenceUnitName = data.readUTF();
+        String providerClassName = data.readUTF();
+        String providerVersion = data.readUTF();
+        int count = data.readInt();
+        List<String> resourceNames = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            resourceNames.add(data.readUTF());
+        }
+        byte[] hash = new byte[32];
+        data.readFully(hash);
+        byte[] resourceSetHash = new byte[32];
+        data.readFully(resourceSetHash);
+        long length = data.readLong();
+        if (length != buffer.remaining()) {
+            throw new IOException(file + " is truncated");
+        }
+        ByteBuffer payload = buffer.slice().asReadOnlyBuffer();
+        return new MetadataSnapshot(persistenceUnitName, providerClassName, providerVersion, resourceNames, hash, resourceSetHash, payload);
+    }
+
+    /**
+     * プロパティの{@link #SNAPSHOT_PROPERTY}で指定されたスナップショットを、
+     * 指定された永続化ユニットとプロバイダのものであり、リソースの内容が変わっていない場合に読み込みます。
+     * 
+     * <p> スナップショットが存在しないか無効な場合は<code>null</code>を返し、
+     * 永続化プロバイダは通常の方法でメタデータを構築します。
+     * 
+     * @param properties 永続化ユニットのプロパティ、もしくは<code>null</code>
+     * @param persistenceUnitName 永続化ユニットの名前
+     * @param providerClassName 永続化プロバイダのクラス名
+     * @param providerVersion 永続化プロバイダが定めるペイロードの形式のバージョン
+     * @param loader リソースを読み込むクラスローダー、システムクラスローダーの場合は<code>null</code>
+     * @return 有効なスナップショット、もしくは<code>null</code>
+     */
+    public static MetadataSnapshot read(Map<?, ?> properties, String persistenceUnitName, String providerClassName,
+            String providerVersion, ClassLoader loader) {
+        Path file = getSnapshotPath(properties);
+        if (file == null) {
+            return null;
+        }
+        MetadataSnapshot snapshot;
+        try {
+            snapshot = read(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "javax.persistence.spi::Ignoring snapshot " + file, e);
+            return null;
+        }
+        if (!snapshot.getPersistenceUnitName().equals(persistenceUnitName)
+                || !snapshot.getProviderClassName().equals(providerClassName)
+                || !snapshot.getProviderVersion().equals(providerVersion)) {
+            LOGGER.log(Level.FINE, "javax.persistence.spi::Ignoring snapshot " + file + " of another persistence unit or provider");
+            return null;
+        }
+        if (!snapshot.isValid(loader)) {
+            LOGGER.log(Level.FINE, "javax.persistence.spi::Ignoring outdated snapshot " + file);
+            return null;
+        }
+        return snapshot;
+    }
+
+    /**
+     * プロパティの{@link #SNAPSHOT_PROPERTY}で指定されたスナップショットのファイルのパスを返します。
+     * 
+     * @param properties 永続化ユニットのプロパティ、もしくは<code>null</code>
+     * @return スナップショットのファイルのパス、指定されていない場合は<code>null</code>
+     * @throws IllegalArgumentException プロパティの値が{@link String}でも{@link Path}でもない場合
+     */
+    public static Path getSnapshotPath(Map<?, ?> properties) {
+        Object value = (properties != null) ? properties.get(SNAPSHOT_PROPERTY) : null;
+        if (value == null || value instanceof Path) {
+            return (Path) value;
+        } else if (value instanceof String) {
+            return Paths.get((String) value);
+        }
+        throw new IllegalArgumentException(SNAPSHOT_PROPERTY + " must be a String or a Path: " + value);
+    }
+
+    private static byte[] hash(List<String> resourceNames, ClassLoader loader) throws IOException {
+        MessageDigest digest = createDigest();
+        byte[] buffer = new byte[8192];
+        for (String name : resourceNames) {
+            URL resource = (loader != null) ? loader.getResource(name) : ClassLoader.getSystemResource(name);
+            if (resource == null) {
+                throw new IOException("Resource " + name + " not found");
+            }
+            update(digest, name, resource, buffer);
+        }
+        return digest.digest();
+    }
+
+    private static byte[] hashResourceSet(ClassLoader loader) throws IOException {
+        MessageDigest digest = createDigest();
+        byte[] buffer = new byte[8192];
+        for (String name : RESOURCE_SET_NAMES) {
+            // the URLs identify the roots, in the order in which the loader searches them
+            Enumeration<URL> resources = (loader != null) ? loader.getResources(name) : ClassLoader.getSystemResources(name);
+            while (resources.hasMoreElements()) {
+                URL resource = resources.nextElement();
+                update(digest, resource.toExternalForm(), resource, buffer);
+            }
+            digest.update((byte) 0);
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String name, URL resource, byte[] buffer) throws IOException {
+        URLConnection connection = resource.openConnection();
+        // do not keep jar files open or locked
+        connection.setUseCaches(false);
+        digest.update(name.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        InputStream in = connection.getInputStream();
+        try {
+            for (int n; (n = in.read(buffer)) >= 0;) {
+                digest.update(buffer, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes to a channel without closing it, so that the payload can be
+     * written directly to the channel after the header.
+     */
+    private static final class ChannelOutputStream extends OutputStream {
+
+        private final WritableByteChannel channel;
+
+        ChannelOutputStream(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+import java.util.ServiceConfigurationError;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A persistence provider found by the ServiceLoader. The provider is
+ * instantiated at most once, when it is first asked for.
+ */
+final class PersistenceProviderCandidate {
+
+    private final String className;
+
+    private Supplier<? extends PersistenceProvider> factory;
+
+    private volatile PersistenceProvider provider;
+
+    /**
+     * Creates a candidate for a provider that has already been instantiated.
+     */
+    PersistenceProviderCandidate(PersistenceProvider provider) {
+        this.className = provider.getClass().getName();
+        this.provider = provider;
+    }
+
+    /**
+     * Creates a candidate for a provider that is instantiated by the given
+     * factory on first use.
+     */
+    PersistenceProviderCandidate(String className, Supplier<? extends PersistenceProvider> factory) {
+        this.className = className;
+        this.factory = factory;
+    }
+
+    /**
+     * Returns the fully qualified name of the provider class.
+     */
+    String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the provider instance, creating it if needed. Returns null if
+     * the provider could not be instantiated, in which case the error is
+     * passed to the error handler the first time only.
+     */
+    PersistenceProvider getProvider(Consumer<ServiceConfigurationError> errorHandler) {
+        PersistenceProvider pp = provider;
+        if (pp == null) {
+            synchronized (this) {
+                pp = provider;
+                if (pp == null && factory != null) {
+                    try {
+                        pp = factory.get();
+                        provider = pp;
+                    } catch (ServiceConfigurationError sce) {
+                        errorHandler.accept(sce);
+                    } finally {
+                        // never retry a failed instantiation
+                        factory = null;
+                    }
+                }
+            }
+        }
+        return pp;
+    }
+}
@@ -37,6 +37,25 @@ public interface PersistenceProviderResolver {
      */
     List<PersistenceProvider> getPersistenceProviders();
 
+    /**
+     * 指定されたクラス名を持つ<code>PersistenceProvider</code>の実装を返します。
+     *
+     * <p> 実装は、指定されたプロバイダ以外のプロバイダをインスタンス化せずにこのメソッドを実装することができます。
+     * デフォルトの実装は<code>getPersistenceProviders</code>メソッドが返すリストからプロバイダを探します。
+     *
+     * @param providerClassName 永続化プロバイダの実装クラスの完全修飾名
+     * @return 指定されたクラス名を持つ永続化プロバイダ、実行環境で利用可能でない場合は<code>null</code>
+     * @since Java Persistence 2.3
+     */
+    default PersistenceProvider getPersistenceProvider(String providerClassName) {
+        for (PersistenceProvider provider : getPersistenceProviders()) {
+            if (provider.getClass().getName().equals(providerClassName)) {
+                return provider;
+            }
+        }
+        return null;
+    }
+
     /**
      * プロバイダのキャッシュをクリアします。
      *
@@ -23,10 +23,11 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.ServiceConfigurationError;
-import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -42,7 +43,7 @@ import java.util.logging.Logger;
  */
 public class PersistenceProviderResolverHolder {
 
-    private static PersistenceProviderResolver singleton = new DefaultPersistenceProviderResolver();
+    private static volatile PersistenceProviderResolver singleton = new DefaultPersistenceProviderResolver();
 
     /**
      * 現在の永続化プロバイダリゾルバを返します。
@@ -72,21 +73,54 @@ public class PersistenceProviderResolverHolder {
      * Uses service loading mechanism as described in the Java Persistence
      * specification. A ServiceLoader.load() call is made with the current context
      * classloader to find the service provider files on the classpath.
+     * See PersistenceProviderLoader for how the providers are instantiated.
      */
     private static class DefaultPersistenceProviderResolver implements PersistenceProviderResolver {
 
         /**
          * Cached list of available providers cached by CacheKey to ensure
-         * there is not potential for provider visibility issues. 
+         * there is not potential for provider visibility issues. Entries are
+         * only ever added with putIfAbsent, so concurrent callers for the same
+         * class loader always end up sharing a single ProvidersEntry.
          */
-        private volatile HashMap<CacheKey, PersistenceProviderReference> providers = new HashMap<CacheKey, PersistenceProviderReference>();
+        private final ConcurrentMap<CacheKey, ProvidersEntry> providers = new ConcurrentHashMap<CacheKey, ProvidersEntry>();
         
         /**
          * Queue for reference objects referring to class loaders or persistence providers.
          */
         private static final ReferenceQueue referenceQueue = new ReferenceQueue();
 
+        /**
+         * Number of slots in recentEntries, must be a power of two.
+         */
+        private static final int RECENT_ENTRIES_SIZE = 32;
+
+        /**
+         * Entries recently used by getLoadedProviders, indexed by the
+         * identity hash code of their class loader. Probing this table does not
+         * allocate, so repeated calls from the same class loader neither create
+         * a CacheKey nor touch the providers map.
+         */
+        private final AtomicReferenceArray<ProvidersEntry> recentEntries = new AtomicReferenceArray<ProvidersEntry>(RECENT_ENTRIES_SIZE);
+
         public List<PersistenceProvider> getPersistenceProviders() {
+            return getLoadedProviders().getProviders();
+        }
+
+        /**
+         * Only instantiates the requested provider. On Java 9 and later the
+         * other providers found by the ServiceLoader are not even initialized.
+         */
+        @Override
+        public PersistenceProvider getPersistenceProvider(String providerClassName) {
+            return getLoadedProviders().getProvider(providerClassName);
+        }
+
+        /**
+         * Returns the providers found for the current context class loader,
+         * running the ServiceLoader scan if they are not cached.
+         */
+        private LoadedProviders getLoadedProviders() {
             // Before we do the real loading work, see whether we need to
             // do some cleanup: If references to class loaders or
             // persistence providers have been nulled out, remove all related
@@ -94,54 +128,60 @@ public class PersistenceProviderResolverHolder {
             processQueue();
             
             ClassLoader loader = getContextClassLoader();
-            CacheKey cacheKey = new CacheKey(loader);
-            PersistenceProviderReference providersReferent = this.providers.get(cacheKey);
-            List<PersistenceProvider> loadedProviders = null;
-            
-            if (providersReferent != null) {
-                loadedProviders = providersReferent.get();
+            int slot = System.identityHashCode(loader) & (RECENT_ENTRIES_SIZE - 1);
+            ProvidersEntry entry = recentEntries.get(slot);
+            if (entry != null && entry.cacheKey.isFor(loader)) {
+                LoadedProviders loadedProviders = entry.getCachedProviders();
+                if (loadedProviders != null) {
+                    return loadedProviders;
+                }
             }
 
-            if (loadedProviders == null) {
-                loadedProviders = new ArrayList<>();
-                Iterator<PersistenceProvider> ipp = ServiceLoader.load(PersistenceProvider.class, loader).iterator();
-                try {
-                    while (ipp.hasNext()) {
-                        try {
-                            PersistenceProvider pp = ipp.next();
-                            loadedProviders.add(pp);
-                        } catch (ServiceConfigurationError sce) {
-                            log(Level.FINEST, sce.toString());
-                        }
-                    }
-                } catch (ServiceConfigurationError sce) {
-                    log(Level.FINEST, sce.toString());
-                }
+            CacheKey cacheKey = new CacheKey(loader);
+            entry = this.providers.get(cacheKey);
 
-                // If none are found we'll log the provider names for diagnostic
-                // purposes.
-                if (loadedProviders.isEmpty()) {
-                    log(Level.WARNING, "No valid providers found.");
+            if (entry == null) {
+                ProvidersEntry newEntry = new ProvidersEntry(cacheKey);
+                entry = this.providers.putIfAbsent(cacheKey, newEntry);
+                if (entry == null) {
+                    entry = newEntry;
                 }
-                
-                providersReferent = new PersistenceProviderReference(loadedProviders, referenceQueue, cacheKey);
-
-                this.providers.put(cacheKey, providersReferent);
             }
 
+            LoadedProviders loadedProviders = entry.getProviders(loader);
+            recentEntries.set(slot, entry);
             return loadedProviders;
         }
-        
+
         /**
          * Remove garbage collected cache keys & providers.
          */
         private void processQueue() {
             CacheKeyReference ref;
             while ((ref = (CacheKeyReference) referenceQueue.poll()) != null) {
-                providers.remove(ref.getCacheKey());
+                CacheKey cacheKey = ref.getCacheKey();
+                if (ref instanceof PersistenceProviderReference) {
+                    // the entry may already have been reloaded with a fresh
+                    // list, in which case it has to stay in the cache
+                    ProvidersEntry entry = providers.get(cacheKey);
+                    if (entry != null && entry.isCurrent((PersistenceProviderReference) ref)) {
+                        providers.remove(cacheKey, entry);
+                    }
+                } else {
+                    providers.remove(cacheKey);
+                }
             }            
         }
 
+        /**
+         * Shared action used by getContextClassLoader when a security manager is present.
+         */
+        private static final PrivilegedAction<ClassLoader> GET_CONTEXT_CLASS_LOADER = new PrivilegedAction<ClassLoader>() {
+            public ClassLoader run() {
+                return Thread.currentThread().getContextClassLoader();
+            }
+        };
+
         /**
          * Wraps <code>Thread.currentThread().getContextClassLoader()</code> into a doPrivileged block if security manager is present
          */
@@ -149,11 +189,7 @@ public class PersistenceProviderResolverHolder {
             if (System.getSecurityManager() == null) {
                 return Thread.currentThread().getContextClassLoader();
             } else {
-                return AccessController.doPrivileged(new PrivilegedAction<ClassLoader>() {
-                    public ClassLoader run() {
-                        return Thread.currentThread().getContextClassLoader();
-                    }
-                });
+                return AccessController.doPrivileged(GET_CONTEXT_CLASS_LOADER);
             }
         }
 
@@ -162,11 +198,22 @@ public class PersistenceProviderResolverHolder {
 
         private Logger logger;
 
+        /**
+         * Logs the ServiceLoader failures of single providers, which are skipped.
+         */
+        private final Consumer<ServiceConfigurationError> errorHandler = new Consumer<ServiceConfigurationError>() {
+            public void accept(ServiceConfigurationError sce) {
+                log(Level.FINEST, sce.toString());
+            }
+        };
+
         private void log(Level level, String message) {
-            if (this.logger == null) {
-                this.logger = Logger.getLogger(LOGGER_SUBSYSTEM);
+            Logger logger = this.logger;
+            if (logger == null) {
+                logger = Logger.getLogger(LOGGER_SUBSYSTEM);
+                this.logger = logger;
             }
-            this.logger.log(level, LOGGER_SUBSYSTEM + "::" + message);
+            logger.log(level, LOGGER_SUBSYSTEM + "::" + message);
         }
 
         /**
@@ -174,9 +221,112 @@ public class PersistenceProviderResolverHolder {
          */
         public void clearCachedProviders() {
             this.providers.clear();
+            for (int i = 0; i < RECENT_ENTRIES_SIZE; i++) {
+                this.recentEntries.set(i, null);
+            }
         }
 
         
+        /**
+         * Holds the providers loaded for one class loader. The ServiceLoader
+         * scan is guarded by the entry itself, so that each class loader is
+         * scanned at most once while different class loaders never wait on
+         * each other.
+         */
+        private class ProvidersEntry {
+
+            private final CacheKey cacheKey;
+
+            private volatile PersistenceProviderReference providersRef;
+
+            ProvidersEntry(CacheKey cacheKey) {
+                this.cacheKey = cacheKey;
+            }
+
+            /**
+             * Returns the providers if they are loaded and have not been
+             * garbage collected yet, otherwise null.
+             */
+            LoadedProviders getCachedProviders() {
+                PersistenceProviderReference ref = providersRef;
+                return (ref != null) ? ref.get() : null;
+            }
+
+            LoadedProviders getProviders(ClassLoader loader) {
+                LoadedProviders loadedProviders = getCachedProviders();
+                if (loadedProviders == null) {
+                    synchronized (this) {
+                        loadedProviders = getCachedProviders();
+                        if (loadedProviders == null) {
+                            BootstrapEvent event = BootstrapEvent.begin(BootstrapEvent.PROVIDER_SCAN, null, null);
+                            try {
+                                loadedProviders = new LoadedProviders(PersistenceProviderLoader.load(loader, errorHandler));
+                            } finally {
+                                event.end();
+                            }
+                            providersRef = new PersistenceProviderReference(loadedProviders, referenceQueue, cacheKey);
+                        }
+                    }
+                }
+                return loadedProviders;
+            }
+
+            boolean isCurrent(PersistenceProviderReference ref) {
+                return providersRef == ref;
+            }
+        }
+
+        /**
+         * The providers found by one ServiceLoader scan. Each provider is only
+         * instantiated when it is first asked for, either by name or as part
+         * of the full list returned by getPersistenceProviders.
+         */
+        private class LoadedProviders {
+
+            private final List<PersistenceProviderCandidate> candidates;
+
+            private volatile List<PersistenceProvider> providers;
+
+            LoadedProviders(List<PersistenceProviderCandidate> candidates) {
+                this.candidates = candidates;
+            }
+
+            List<PersistenceProvider> getProviders() {
+                List<PersistenceProvider> loadedProviders = providers;
+                if (loadedProviders == null) {
+                    synchronized (this) {
+                        loadedProviders = providers;
+                        if (loadedProviders == null) {
+                            loadedProviders = new ArrayList<>();
+                            for (PersistenceProviderCandidate candidate : candidates) {
+                                PersistenceProvider pp = candidate.getProvider(errorHandler);
+                                if (pp != null) {
+                                    loadedProviders.add(pp);
+                                }
+                            }
+
+                            // If none are found we'll log the provider names for diagnostic
+                            // purposes.
+                            if (loadedProviders.isEmpty()) {
+                                log(Level.WARNING, "No valid providers found.");
+                            }
+                            providers = loadedProviders;
+                        }
+                    }
+                }
+                return loadedProviders;
+            }
+
+            PersistenceProvider getProvider(String providerClassName) {
+                for (PersistenceProviderCandidate candidate : candidates) {
+                    if (candidate.getClassName().equals(providerClassName)) {
+                        return candidate.getProvider(errorHandler);
+                    }
+                }
+                return null;
+            }
+        }
+
         /**
          * The common interface to get a CacheKey implemented by
          * LoaderReference and PersistenceProviderReference.
@@ -211,6 +361,18 @@ public class PersistenceProviderResolverHolder {
                 return (loaderRef != null) ? loaderRef.get() : null;
             }
 
+            /**
+             * Checks whether this key was created for the given loader. Unlike
+             * comparing against getLoader() this does not mistake a key whose
+             * class loader has been garbage collected for the null loader.
+             */
+            boolean isFor(ClassLoader loader) {
+                if (loaderRef == null) {
+                    return loader == null;
+                }
+                return loader != null && loaderRef.get() == loader;
+            }
+
             public boolean equals(Object other) {
                 if (this == other) {
                     return true;
@@ -291,12 +453,12 @@ public class PersistenceProviderResolverHolder {
          * References to persistence provider are soft references so that they can be garbage
          * collected when they have no hard references.
          */
-        private class PersistenceProviderReference extends SoftReference<List<PersistenceProvider>>
+        private class PersistenceProviderReference extends SoftReference<LoadedProviders>
                 implements CacheKeyReference {
             private CacheKey cacheKey;
 
             @SuppressWarnings("unchecked")
-            PersistenceProviderReference(List<PersistenceProvider> referent, ReferenceQueue q, CacheKey key) {
+            PersistenceProviderReference(LoadedProviders referent, ReferenceQueue q, CacheKey key) {
                 super(referent, q);
                 cacheKey = key;
             }
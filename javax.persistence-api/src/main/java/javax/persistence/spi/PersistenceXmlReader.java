@@ -0,0 +1,385 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import javax.persistence.PersistenceException;
+import javax.persistence.SharedCacheMode;
+import javax.persistence.ValidationMode;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * <code>persistence.xml</code>ファイルを読み込み、不変の{@link PersistenceUnitInfo}を作成します。
+ * 
+ * <p> ファイルはStAXのストリームリーダーによって一度の走査で読み込まれ、その結果はファイルのURLと最終更新時刻ごとにキャッシュされます。
+ * そのため、同じファイルを読み込む永続化プロバイダと{@link javax.persistence.Persistence}は一度の解析の結果を共有できます。
+ * 要素はローカル名のみで照合されるため、永続化スキーマのすべてのバージョンを読み込むことができます。
+ * 
+ * <p> 読み込み時にはスキーマによる検証は行われません。
+ * 検証が必要な場合は{@link #validate(URL)}を呼び出すことで、ファイルのバージョンに対応するXMLスキーマで検証することができます。
+ * 
+ * <p> <code>transaction-type</code>属性が指定されていない永続化ユニットのトランザクションタイプは、
+ * Java SE環境でのデフォルトである<code>RESOURCE_LOCAL</code>になります。
+ * 返される永続化ユニットの{@link PersistenceUnitInfo#addTransformer}で追加されたトランスフォーマーは保持されるだけで、適用されません。
+ * 
+ * @since Java Persistence 2.3
+ */
+public final class PersistenceXmlReader {
+
+    /**
+     * 永続化ユニットのルートに対する<code>persistence.xml</code>ファイルの位置です。
+     */
+    public static final String PERSISTENCE_XML = "META-INF/persistence.xml";
+
+    /**
+     * Parsed documents by URL. The units are not bound to a class loader, so
+     * the cache never keeps a class loader alive.
+     */
+    private static final ConcurrentMap<String, ParsedDocument> documents = new ConcurrentHashMap<String, ParsedDocument>();
+
+    /**
+     * Compiled persistence schemas by version. Schema instances are thread-safe.
+     */
+    private static final ConcurrentMap<String, Schema> schemas = new ConcurrentHashMap<String, Schema>();
+
+    private PersistenceXmlReader() {
+    }
+
+    /**
+     * 指定されたクラスローダーから参照できるすべての<code>persistence.xml</code>ファイルの永続化ユニットを返します。
+     * 
+     * @param loader ファイルを探索するクラスローダー、システムクラスローダーの場合は<code>null</code>
+     * @return 永続化ユニットのリスト。
+     *         各永続化ユニットの{@link PersistenceUnitInfo#getClassLoader}は<code>loader</code>を返します。
+     * @throws PersistenceException ファイルを読み込めなかった場合
+     */
+    public static List<PersistenceUnitInfo> readPersistenceUnits(ClassLoader loader) {
+        Enumeration<URL> resources;
+        try {
+            resources = (loader != null) ? loader.getResources(PERSISTENCE_XML) : ClassLoader.getSystemResources(PERSISTENCE_XML);
+        } catch (IOException e) {
+            throw new PersistenceException("Unable to find " + PERSISTENCE_XML, e);
+        }
+        List<PersistenceUnitInfo> units = new ArrayList<PersistenceUnitInfo>();
+        for (URL persistenceXml : Collections.list(resources)) {
+            units.addAll(read(persistenceXml, loader));
+        }
+        return units;
+    }
+
+    /**
+     * 指定された<code>persistence.xml</code>ファイルの永続化ユニットを返します。
+     * 
+     * @param persistenceXml 永続化ユニットのルートの<code>META-INF/persistence.xml</code>ファイルのURL
+     * @param loader 永続化ユニットの{@link PersistenceUnitInfo#getClassLoader}が返すクラスローダー
+     * @return 永続化ユニットのリスト
+     * @throws PersistenceException ファイルを読み込めなかった場合
+     */
+    public static List<PersistenceUnitInfo> readPersistenceUnits(URL persistenceXml, ClassLoader loader) {
+        return Collections.<PersistenceUnitInfo>unmodifiableList(read(persistenceXml, loader));
+    }
+
+    /**
+     * 指定された<code>persistence.xml</code>ファイルを、その<code>version</code>属性に対応するXMLスキーマで検証します。
+     * 
+     * <p> 検証の結果はファイルの解析結果と共にキャッシュされるため、変更されていないファイルが再度検証されることはありません。
+     * 
+     * @param persistenceXml <code>persistence.xml</code>ファイルのURL
+     * @throws PersistenceException ファイルを読み込めなかった場合、ファイルがスキーマに適合しない場合、
+     *         またはファイルのバージョンがサポートされていない場合
+     */
+    public static void validate(URL persistenceXml) {
+        ParsedDocument document = getDocument(persistenceXml);
+        if (!document.valid) {
+            Validator validator = getSchema(persistenceXml, document.version).newValidator();
+            try {
+                // the schema is complete, never fetch anything referenced by the document
+                validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+                validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+                InputStream in = openStream(persistenceXml);
+                try {
+                    validator.validate(new StreamSource(in, persistenceXml.toExternalForm()));
+                } finally {
+                    in.close();
+                }
+            } catch (SAXParseException e) {
+                throw new PersistenceException("Invalid " + persistenceXml + " at line " + e.getLineNumber() + ": " + e.getMessage(), e);
+            } catch (SAXException e) {
+                throw new PersistenceException("Invalid " + persistenceXml + ": " + e.getMessage(), e);
+            } catch (IOException e) {
+                throw new PersistenceException("Unable to read " + persistenceXml, e);
+            }
+            document.valid = true;
+        }
+    }
+
+    /**
+     * Reads all persistence units of the given persistence.xml, bound to the
+     * given class loader.
+     */
+    static List<DefaultPersistenceUnitInfo> read(URL persistenceXml, ClassLoader loader) {
+        List<DefaultPersistenceUnitInfo> units = getDocument(persistenceXml).units;
+        List<DefaultPersistenceUnitInfo> boundUnits = new ArrayList<DefaultPersistenceUnitInfo>(units.size());
+        for (DefaultPersistenceUnitInfo unit : units) {
+            boundUnits.add(unit.withClassLoader(loader));
+        }
+        return boundUnits;
+    }
+
+    /**
+     * Returns the cached document, parsing it again if the file has changed.
+     * The file is parsed outside the map, so that reading one file never
+     * blocks readers of other files. Concurrent readers of a changed file
+     * may each parse it, but the first document stored is shared.
+     */
+    private static ParsedDocument getDocument(URL persistenceXml) {
+        long lastModified = getLastModified(persistenceXml);
+        String key = persistenceXml.toExternalForm();
+        ParsedDocument document = documents.get(key);
+        if (document != null && document.lastModified == lastModified) {
+            return document;
+        }
+        return documents.merge(key, parse(persistenceXml, lastModified), new BiFunction<ParsedDocument, ParsedDocument, ParsedDocument>() {
+            public ParsedDocument apply(ParsedDocument cached, ParsedDocument parsed) {
+                return (cached.lastModified == parsed.lastModified) ? cached : parsed;
+            }
+        });
+    }
+
+    /**
+     * Returns the last modification time of the file, or of the jar file
+     * containing it. Returns 0 if it is unknown.
+     */
+    private static long getLastModified(URL url) {
+        try {
+            URL file = url;
+            if ("jar".equals(url.getProtocol())) {
+                String spec = url.getFile();
+                int separator = spec.indexOf("!/");
+                if (separator >= 0) {
+                    file = new URL(spec.substring(0, separator));
+                }
+            }
+            if ("file".equals(file.getProtocol())) {
+                return new File(file.toURI()).lastModified();
+            }
+        } catch (MalformedURLException e) {
+            // ask the connection
+        } catch (URISyntaxException e) {
+            // ask the connection
+        } catch (IllegalArgumentException e) {
+            // ask the connection
+        }
+        try {
+            URLConnection connection = url.openConnection();
+            connection.setUseCaches(false);
+            return connection.getLastModified();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static InputStream openStream(URL url) throws IOException {
+        URLConnection connection = url.openConnection();
+        // do not keep jar files open or locked
+        connection.setUseCaches(false);
+        return connection.getInputStream();
+    }
+
+    private static Schema getSchema(URL persistenceXml, String version) {
+        String resource = (version != null) ? "/javax/persistence/persistence_" + version.replace('.', '_') + ".xsd" : null;
+        URL xsd = (resource != null) ? PersistenceXmlReader.class.getResource(resource) : null;
+        if (xsd == null) {
+            throw new PersistenceException("Unsupported version " + version + " of " + persistenceXml);
+        }
+        Schema schema = schemas.get(version);
+        if (schema == null) {
+            try {
+                schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(xsd);
+            } catch (SAXException e) {
+                throw new PersistenceException("Unable to load " + xsd, e);
+            }
+            schemas.putIfAbsent(version, schema);
+        }
+        return schema;
+    }
+
+    private static ParsedDocument parse(URL persistenceXml, long lastModified) {
+        URL root = DefaultPersistenceUnitInfo.getPersistenceUnitRootUrl(persistenceXml, PERSISTENCE_XML);
+        try {
+            InputStream in = openStream(persistenceXml);
+            try {
+                return parse(in, root, lastModified);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new PersistenceException("Unable to read " + persistenceXml, e);
+        } catch (XMLStreamException e) {
+            throw new PersistenceException("Unable to parse " + persistenceXml + ": " + e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            // unknown transaction-type, shared-cache-mode or validation-mode
+            throw new PersistenceException("Unable to parse " + persistenceXml + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static ParsedDocument parse(InputStream in, URL root, long lastModified) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+
+        XMLStreamReader reader = factory.createXMLStreamReader(in);
+        try {
+            List<DefaultPersistenceUnitInfo> units = new ArrayList<DefaultPersistenceUnitInfo>();
+            String version = null;
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    String element = reader.getLocalName();
+                    if ("persistence".equals(element)) {
+                        version = reader.getAttributeValue(null, "version");
+                    } else if ("persistence-unit".equals(element)) {
+                        units.add(readPersistenceUnit(reader, version, root));
+                    }
+                }
+            }
+            return new ParsedDocument(lastModified, version, units);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads one persistence-unit element, the reader being positioned on its
+     * start tag. Returns with the reader positioned on its end tag.
+     */
+    private static DefaultPersistenceUnitInfo readPersistenceUnit(XMLStreamReader reader, String version, URL root) throws XMLStreamException {
+        String name = reader.getAttributeValue(null, "name");
+        String transactionType = reader.getAttributeValue(null, "transaction-type");
+        String provider = null;
+        String jtaDataSource = null;
+        String nonJtaDataSource = null;
+        List<String> mappingFiles = new ArrayList<String>();
+        List<String> jarFiles = new ArrayList<String>();
+        List<String> classes = new ArrayList<String>();
+        boolean excludeUnlistedClasses = false;
+        SharedCacheMode sharedCacheMode = SharedCacheMode.UNSPECIFIED;
+        ValidationMode validationMode = ValidationMode.AUTO;
+        Properties properties = new Properties();
+
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                String element = reader.getLocalName();
+                if ("provider".equals(element)) {
+                    provider = reader.getElementText().trim();
+                } else if ("jta-data-source".equals(element)) {
+                    jtaDataSource = reader.getElementText().trim();
+                } else if ("non-jta-data-source".equals(element)) {
+                    nonJtaDataSource = reader.getElementText().trim();
+                } else if ("mapping-file".equals(element)) {
+                    mappingFiles.add(reader.getElementText().trim());
+                } else if ("jar-file".equals(element)) {
+                    jarFiles.add(reader.getElementText().trim());
+                } else if ("class".equals(element)) {
+                    classes.add(reader.getElementText().trim());
+                } else if ("exclude-unlisted-classes".equals(element)) {
+                    // an empty element means true
+                    String value = reader.getElementText().trim();
+                    excludeUnlistedClasses = value.isEmpty() || Boolean.parseBoolean(value);
+                } else if ("shared-cache-mode".equals(element)) {
+                    sharedCacheMode = SharedCacheMode.valueOf(reader.getElementText().trim());
+                } else if ("validation-mode".equals(element)) {
+                    validationMode = ValidationMode.valueOf(reader.getElementText().trim());
+                } else if ("property".equals(element)) {
+                    String propertyName = reader.getAttributeValue(null, "name");
+                    if (propertyName == null) {
+                        throw new XMLStreamException("property without a name in persistence unit " + name, reader.getLocation());
+                    }
+                    // the providers accept a property without a value
+                    String propertyValue = reader.getAttributeValue(null, "value");
+                    properties.setProperty(propertyName, (propertyValue != null) ? propertyValue : "");
+                    depth++;
+                } else {
+                    // description and properties
+                    depth++;
+                }
+            }
+        }
+
+        return new DefaultPersistenceUnitInfo(name,
+                provider,
+                (transactionType != null) ? PersistenceUnitTransactionType.valueOf(transactionType) : PersistenceUnitTransactionType.RESOURCE_LOCAL,
+                jtaDataSource,
+                nonJtaDataSource,
+                mappingFiles,
+                jarFiles,
+                root,
+                classes,
+                excludeUnlistedClasses,
+                sharedCacheMode,
+                validationMode,
+                properties,
+                version,
+                null);
+    }
+
+    /**
+     * The persistence units of one persistence.xml file.
+     */
+    private static final class ParsedDocument {
+
+        final long lastModified;
+
+        final String version;
+
+        final List<DefaultPersistenceUnitInfo> units;
+
+        /**
+         * Whether the document has been validated against its schema.
+         */
+        volatile boolean valid;
+
+        ParsedDocument(long lastModified, String version, List<DefaultPersistenceUnitInfo> units) {
+            this.lastModified = lastModified;
+            this.version = version;
+            this.units = units;
+        }
+    }
+}
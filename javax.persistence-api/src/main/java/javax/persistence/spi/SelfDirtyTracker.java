@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+import java.util.BitSet;
+
+/**
+ * 変更された属性を自身で記録するエンティティによって実装されるインタフェース。
+ * 
+ * <p> このインタフェースは、永続化プロバイダが{@link ClassTransformer}によってエンティティクラスを拡張する際に追加されます。
+ * 拡張されたエンティティは永続属性が変更されるたびに、その属性のインデックスのビットをビットセットに設定します。
+ * 属性のインデックスはエンティティクラスを拡張した永続化プロバイダが割り当て、同じプロバイダのみが解釈します。
+ * 
+ * <p> 永続化プロバイダはフラッシュ時に、管理下のエンティティのすべての属性をスナップショットと比較する代わりに、
+ * {@link #_persistence_hasDirtyAttributes}と{@link #_persistence_getDirtyAttributes}で変更された属性のみを調べることができます。
+ * そのため、フラッシュのコストは変更された属性の数に比例します。
+ * コレクションや埋め込み可能クラス、可変な基本型のように、属性への代入を伴わずに内容が変更される属性については、
+ * プロバイダが従来通り比較するか、変更を検出するラッパーによって記録しなければなりません。
+ * 
+ * <p> アプリケーションの属性と衝突しないように、メソッドの名前は<code>_persistence_</code>で始まります。
+ * アプリケーションはこれらのメソッドを呼び出すべきではありません。
+ * 
+ * @since Java Persistence 2.3
+ */
+public interface SelfDirtyTracker {
+
+    /**
+     * 指定された属性を変更されたものとして記録します。
+     * 
+     * 拡張されたエンティティの属性への代入から呼び出されます。
+     * @param attributeIndex  永続化プロバイダが割り当てた属性のインデックス
+     */
+    public void _persistence_markDirty(int attributeIndex);
+
+    /**
+     * 前回記録が消去されてから変更された属性があるかどうかを返します。
+     * 
+     * このメソッドはビットセットを作成せずに呼び出すことができます。
+     * @return 変更された属性がある場合はtrue
+     */
+    public boolean _persistence_hasDirtyAttributes();
+
+    /**
+     * 前回記録が消去されてから変更された属性のインデックスのビットセットを返します。
+     * 
+     * 実装は内部のビットセットをそのまま返すことができるため、呼び出し元は返されたビットセットを変更してはなりません。
+     * @return 変更された属性のインデックスのビットが設定されたビットセット
+     */
+    public BitSet _persistence_getDirtyAttributes();
+
+    /**
+     * 変更された属性の記録を消去します。
+     * 
+     * 永続化プロバイダはエンティティの状態をデータベースから読み込んだ後、およびエンティティの変更をフラッシュした後にこのメソッドを呼び出します。
+     */
+    public void _persistence_clearDirtyAttributes();
+}
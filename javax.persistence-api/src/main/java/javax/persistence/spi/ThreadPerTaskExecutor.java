@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * タスクごとに新しいスレッドを開始するExecutorです。
+ * 
+ * <p> 仮想スレッドが利用可能な場合はタスクごとに仮想スレッドを、そうでない場合はタスクごとに新しいデーモンスレッドを開始します。
+ * ブロッキングI/Oを伴うタスクのために使用します。
+ * {@link javax.persistence.Persistence}の非同期のブートストラップと{@link CachingClassTransformer}は、
+ * Executorが指定されなかった場合にこのExecutorを使用します。
+ * 
+ * @since Java Persistence 2.3
+ */
+public final class ThreadPerTaskExecutor implements Executor {
+
+    private final ThreadFactory threadFactory;
+
+    /**
+     * Executorを作成します。
+     * 
+     * @param threadNamePrefix 仮想スレッドが利用できない場合に作成されるスレッドの名前の接頭辞
+     */
+    public ThreadPerTaskExecutor(String threadNamePrefix) {
+        this.threadFactory = createThreadFactory(threadNamePrefix);
+    }
+
+    public void execute(Runnable command) {
+        threadFactory.newThread(command).start();
+    }
+
+    private static ThreadFactory createThreadFactory(final String threadNamePrefix) {
+        try {
+            // Thread.ofVirtual().factory(), available since Java 21
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            // no virtual threads, or only as a preview feature
+        } catch (RuntimeException e) {
+            // no virtual threads, or only as a preview feature
+        }
+        return new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, threadNamePrefix + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Records BootstrapEvents.
+ * 
+ * This is the Java 11 version of this class, which records the phases as
+ * JFR events. Runtimes without the jdk.jfr module record nothing.
+ */
+final class BootstrapEventRecorder {
+
+    private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private BootstrapEventRecorder() {
+    }
+
+    /**
+     * Starts recording a phase, returning null if it is not recorded.
+     */
+    static Object begin(String phase, String persistenceUnitName, String providerClassName) {
+        if (!AVAILABLE) {
+            return null;
+        }
+        return JfrBootstrapEvent.begin(phase, persistenceUnitName, providerClassName);
+    }
+
+    /**
+     * Ends recording a phase started by begin.
+     */
+    static void end(Object recording) {
+        // commit() ends the event and honors the duration threshold
+        ((JfrBootstrapEvent) recording).commit();
+    }
+
+    /**
+     * The JFR event, in its own class so that it is only loaded when the
+     * jdk.jfr module is present.
+     */
+    @Name("javax.persistence.Bootstrap")
+    @Label("Persistence Bootstrap")
+    @Category({"Java Persistence"})
+    @Description("A phase of the bootstrap of a persistence unit")
+    @StackTrace(false)
+    static final class JfrBootstrapEvent extends Event {
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Persistence Unit")
+        String persistenceUnit;
+
+        @Label("Provider Class")
+        String provider;
+
+        static JfrBootstrapEvent begin(String phase, String persistenceUnitName, String providerClassName) {
+            JfrBootstrapEvent event = new JfrBootstrapEvent();
+            if (!event.isEnabled()) {
+                return null;
+            }
+            event.phase = phase;
+            event.persistenceUnit = persistenceUnitName;
+            event.provider = providerClassName;
+            event.begin();
+            return event;
+        }
+    }
+}
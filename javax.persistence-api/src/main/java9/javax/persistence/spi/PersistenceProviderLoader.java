@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.function.Consumer;
+
+/**
+ * Finds the persistence providers visible to a class loader.
+ * 
+ * This is the Java 9 version of this class. ServiceLoader.stream() exposes
+ * the provider types without instantiating them, so a provider is only
+ * created, and its static initializers only run, once it is actually used.
+ */
+final class PersistenceProviderLoader {
+
+    private PersistenceProviderLoader() {
+    }
+
+    /**
+     * Runs the ServiceLoader scan for the given class loader. Providers
+     * failing to load are passed to the error handler and skipped.
+     */
+    static List<PersistenceProviderCandidate> load(ClassLoader loader, Consumer<ServiceConfigurationError> errorHandler) {
+        List<PersistenceProviderCandidate> candidates = new ArrayList<>();
+        Iterator<ServiceLoader.Provider<PersistenceProvider>> ipp = ServiceLoader.load(PersistenceProvider.class, loader).stream().iterator();
+        try {
+            while (ipp.hasNext()) {
+                try {
+                    ServiceLoader.Provider<PersistenceProvider> pp = ipp.next();
+                    candidates.add(new PersistenceProviderCandidate(pp.type().getName(), pp));
+                } catch (ServiceConfigurationError sce) {
+                    errorHandler.accept(sce);
+                }
+            }
+        } catch (ServiceConfigurationError sce) {
+            errorHandler.accept(sce);
+        }
+        return candidates;
+    }
+}
@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DefaultAsyncEntityManagerTest {
+
+    private static final long TIMEOUT = 10;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void serializesOperationsOfOneEntityManager() throws Exception {
+        TestEntityManager em = new TestEntityManager();
+        AsyncEntityManager first = new DefaultAsyncEntityManager(em.proxy, executor);
+        AsyncEntityManager second = new DefaultAsyncEntityManager(em.proxy, executor);
+        assertSame(em.proxy, first.getEntityManager());
+
+        List<CompletableFuture<Object>> futures = new ArrayList<CompletableFuture<Object>>();
+        for (int i = 0; i < 50; i++) {
+            AsyncEntityManager async = (i % 2 == 0) ? first : second;
+            futures.add(async.findAsync(Object.class, i).toCompletableFuture());
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, futures.get(i).get(TIMEOUT, TimeUnit.SECONDS));
+        }
+        assertEquals(1, em.maxConcurrency.get());
+        List<Object> expected = new ArrayList<Object>();
+        for (int i = 0; i < 50; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, em.keys);
+    }
+
+    @Test
+    public void runsOperationsOfDifferentEntityManagersConcurrently() throws Exception {
+        TestEntityManager blocked = new TestEntityManager();
+        blocked.release = new CountDownLatch(1);
+        TestEntityManager other = new TestEntityManager();
+
+        CompletableFuture<Object> first = new DefaultAsyncEntityManager(blocked.proxy, executor)
+                .findAsync(Object.class, 1).toCompletableFuture();
+        assertEquals(2, new DefaultAsyncEntityManager(other.proxy, executor)
+                .findAsync(Object.class, 2).toCompletableFuture().get(TIMEOUT, TimeUnit.SECONDS));
+        assertFalse(first.isDone());
+
+        blocked.release.countDown();
+        assertEquals(1, first.get(TIMEOUT, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void skipsOperationsCancelledBeforeTheyStart() throws Exception {
+        TestEntityManager em = new TestEntityManager();
+        em.release = new CountDownLatch(1);
+        AsyncEntityManager async = new DefaultAsyncEntityManager(em.proxy, executor);
+
+        CompletableFuture<Object> running = async.findAsync(Object.class, 1).toCompletableFuture();
+        CompletableFuture<Object> cancelled = async.findAsync(Object.class, 2).toCompletableFuture();
+        CompletableFuture<Object> next = async.findAsync(Object.class, 3).toCompletableFuture();
+        assertTrue(em.started.await(TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(cancelled.cancel(true));
+
+        em.release.countDown();
+        assertEquals(1, running.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(3, next.get(TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(cancelled.isCancelled());
+        assertEquals(Collections.<Object>singletonList(1), em.keys.subList(0, 1));
+        assertFalse(em.keys.contains(2));
+    }
+
+    @Test
+    public void cancelDoesNotInterruptOrOverlapTheRunningOperation() throws Exception {
+        TestEntityManager em = new TestEntityManager();
+        em.release = new CountDownLatch(1);
+        AsyncEntityManager async = new DefaultAsyncEntityManager(em.proxy, executor);
+
+        CompletableFuture<Object> running = async.findAsync(Object.class, 1).toCompletableFuture();
+        assertTrue(em.started.await(TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(running.cancel(true));
+        CompletableFuture<Object> next = async.findAsync(Object.class, 2).toCompletableFuture();
+
+        // the next operation waits until the cancelled one has finished
+        Thread.sleep(100);
+        assertFalse(next.isDone());
+        assertEquals(Collections.<Object>singletonList(1), em.keys);
+
+        em.release.countDown();
+        assertEquals(2, next.get(TIMEOUT, TimeUnit.SECONDS));
+        assertFalse(em.interrupted.get());
+        assertEquals(1, em.maxConcurrency.get());
+    }
+
+    @Test
+    public void continuesAfterFailure() throws Exception {
+        TestEntityManager em = new TestEntityManager();
+        em.failingKey = 1;
+        AsyncEntityManager async = new DefaultAsyncEntityManager(em.proxy, executor);
+
+        CompletableFuture<Object> failed = async.findAsync(Object.class, 1).toCompletableFuture();
+        CompletableFuture<Object> next = async.findAsync(Object.class, 2).toCompletableFuture();
+        try {
+            failed.get(TIMEOUT, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof EntityNotFoundException);
+        }
+        assertEquals(2, next.get(TIMEOUT, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void continuesAfterRejection() throws Exception {
+        TestEntityManager em = new TestEntityManager();
+        final AtomicInteger calls = new AtomicInteger();
+        AsyncEntityManager async = new DefaultAsyncEntityManager(em.proxy, new Executor() {
+            public void execute(Runnable command) {
+                if (calls.incrementAndGet() == 1) {
+                    throw new RejectedExecutionException();
+                }
+                executor.execute(command);
+            }
+        });
+
+        CompletableFuture<Object> rejected = async.findAsync(Object.class, 1).toCompletableFuture();
+        CompletableFuture<Object> next = async.findAsync(Object.class, 2).toCompletableFuture();
+        try {
+            rejected.get(TIMEOUT, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals(2, next.get(TIMEOUT, TimeUnit.SECONDS));
+        assertFalse(em.keys.contains(1));
+    }
+
+    @Test
+    public void defaultExecutorDoesNotUseCommonPool() throws Exception {
+        TestEntityManager em = new TestEntityManager();
+        AsyncEntityManager async = new DefaultAsyncEntityManager(em.proxy, DefaultAsyncEntityManager.DEFAULT_EXECUTOR);
+
+        assertEquals(1, async.findAsync(Object.class, 1).toCompletableFuture().get(TIMEOUT, TimeUnit.SECONDS));
+        assertFalse(em.thread instanceof ForkJoinWorkerThread);
+    }
+
+    /**
+     * An entity manager whose find returns the primary key, optionally
+     * blocking until released.
+     */
+    private static final class TestEntityManager implements InvocationHandler {
+
+        final EntityManager proxy = (EntityManager) Proxy.newProxyInstance(
+                DefaultAsyncEntityManagerTest.class.getClassLoader(), new Class<?>[] { EntityManager.class }, this);
+
+        final List<Object> keys = Collections.synchronizedList(new ArrayList<Object>());
+
+        final AtomicInteger concurrency = new AtomicInteger();
+
+        final AtomicInteger maxConcurrency = new AtomicInteger();
+
+        final AtomicBoolean interrupted = new AtomicBoolean();
+
+        final CountDownLatch started = new CountDownLatch(1);
+
+        volatile CountDownLatch release;
+
+        volatile Object failingKey;
+
+        volatile Thread thread;
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws InterruptedException {
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            if (!method.getName().equals("find")) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            int current = concurrency.incrementAndGet();
+            try {
+                for (int max; current > (max = maxConcurrency.get()) && !maxConcurrency.compareAndSet(max, current);) {
+                    // retry
+                }
+                thread = Thread.currentThread();
+                keys.add(args[1]);
+                started.countDown();
+                CountDownLatch latch = release;
+                if (latch != null && args[1].equals(1)) {
+                    latch.await(TIMEOUT, TimeUnit.SECONDS);
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    interrupted.set(true);
+                }
+                if (args[1].equals(failingKey)) {
+                    throw new EntityNotFoundException();
+                }
+                return args[1];
+            } finally {
+                concurrency.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.spi.PersistenceProvider;
+import javax.persistence.spi.PersistenceProviderResolver;
+import javax.persistence.spi.PersistenceUnitInfo;
+import javax.persistence.spi.ProviderUtil;
+import org.junit.Test;
+
+public class LazyEntityManagerFactoryTest {
+
+    private final AtomicInteger created = new AtomicInteger();
+
+    private final AtomicInteger closed = new AtomicInteger();
+
+    private volatile Map<?, ?> createdWith;
+
+    private volatile RuntimeException failure;
+
+    private final PersistenceProviderResolver resolver = new PersistenceProviderResolver() {
+        private final List<PersistenceProvider> providers = Collections.<PersistenceProvider>singletonList(new TestProvider());
+
+        public List<PersistenceProvider> getPersistenceProviders() {
+            return providers;
+        }
+
+        public void clearCachedProviders() {
+        }
+    };
+
+    private LazyEntityManagerFactory newFactory(Map<?, ?> properties) {
+        return new LazyEntityManagerFactory(resolver, getClass().getClassLoader(), "unit", properties);
+    }
+
+    @Test
+    public void createsOnFirstUse() {
+        LazyEntityManagerFactory emf = newFactory(null);
+        assertTrue(emf.isOpen());
+        assertEquals(0, created.get());
+
+        emf.getMetamodel();
+        emf.createEntityManager();
+        assertEquals(1, created.get());
+
+        emf.close();
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    public void createsOnceForConcurrentFirstUse() throws Exception {
+        final LazyEntityManagerFactory emf = newFactory(null);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> results = new ArrayList<Future<Object>>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws Exception {
+                        start.await();
+                        return emf.getProperties();
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Object> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void closeBeforeUseDoesNotCreate() {
+        LazyEntityManagerFactory emf = newFactory(null);
+        emf.close();
+        assertFalse(emf.isOpen());
+        try {
+            emf.createEntityManager();
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            emf.close();
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(0, created.get());
+    }
+
+    @Test
+    public void rethrowsTheCreationFailure() {
+        failure = new PersistenceException("broken");
+        LazyEntityManagerFactory emf = newFactory(null);
+        for (int i = 0; i < 2; i++) {
+            try {
+                emf.createEntityManager();
+                fail();
+            } catch (PersistenceException e) {
+                assertSame(failure, e);
+            }
+        }
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void usesThePropertiesGivenAtConstruction() {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("key", "before");
+        LazyEntityManagerFactory emf = newFactory(properties);
+        properties.put("key", "after");
+        properties.put("added", "after");
+
+        emf.createEntityManager();
+        assertEquals(Collections.singletonMap("key", "before"), createdWith);
+    }
+
+    class TestProvider implements PersistenceProvider {
+
+        @SuppressWarnings("rawtypes")
+        public EntityManagerFactory createEntityManagerFactory(String emName, Map map) {
+            created.incrementAndGet();
+            createdWith = map;
+            if (failure != null) {
+                throw failure;
+            }
+            return (EntityManagerFactory) Proxy.newProxyInstance(LazyEntityManagerFactoryTest.class.getClassLoader(),
+                    new Class<?>[] { EntityManagerFactory.class }, new InvocationHandler() {
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            if (method.getName().equals("close")) {
+                                closed.incrementAndGet();
+                            }
+                            return null;
+                        }
+                    });
+        }
+
+        @SuppressWarnings("rawtypes")
+        public EntityManagerFactory createContainerEntityManagerFactory(PersistenceUnitInfo info, Map map) {
+            return null;
+        }
+
+        @SuppressWarnings("rawtypes")
+        public void generateSchema(PersistenceUnitInfo info, Map map) {
+        }
+
+        @SuppressWarnings("rawtypes")
+        public boolean generateSchema(String persistenceUnitName, Map map) {
+            return false;
+        }
+
+        public ProviderUtil getProviderUtil() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import static javax.persistence.QueryResultPublisherTest.assertRestored;
+import static javax.persistence.QueryResultPublisherTest.assertWindows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+public class PagedResultIteratorTest {
+
+    @Test
+    public void executesOnceWithoutFetchSize() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(250);
+
+        assertEquals(query.rows, query.getResultStream().collect(Collectors.toList()));
+        assertWindows(query, 0, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void pagesByFetchSize() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        query.setFetchSize(10);
+
+        assertEquals(query.rows, query.getResultStream().collect(Collectors.toList()));
+        assertWindows(query, 0, 10, 10, 10, 20, 10);
+        assertRestored(query, 0, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void stopsAfterAnEmptyPage() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(20);
+        query.setFetchSize(10);
+
+        assertEquals(query.rows, query.getResultStream().collect(Collectors.toList()));
+        assertWindows(query, 0, 10, 10, 10, 20, 10);
+    }
+
+    @Test
+    public void pagesWithinTheWindowOfTheQuery() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(30);
+        query.setFirstResult(3).setMaxResults(12).setFetchSize(5);
+
+        assertEquals(query.rows.subList(3, 15), query.getResultStream().collect(Collectors.toList()));
+        // the last page is limited to the remaining results and ends the stream
+        assertWindows(query, 3, 5, 8, 5, 13, 2);
+        assertRestored(query, 3, 12);
+    }
+
+    @Test
+    public void doesNotExecuteForNoMaxResults() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(30);
+        query.setMaxResults(0).setFetchSize(5);
+
+        assertEquals(0, query.getResultStream().count());
+        assertTrue(query.executions.isEmpty());
+    }
+
+    @Test
+    public void fetchesOnlyWhatIsConsumed() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(1000);
+        query.setFetchSize(10);
+
+        Stream<Integer> stream = query.getResultStream();
+        try {
+            assertEquals(query.rows.subList(0, 3), stream.limit(3).collect(Collectors.toList()));
+        } finally {
+            stream.close();
+        }
+        assertWindows(query, 0, 10);
+        assertRestored(query, 0, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void restoresTheWindowOfAnUnclosedStream() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(100);
+        query.setFirstResult(1).setFetchSize(10);
+
+        Iterator<Integer> iterator = query.getResultStream().iterator();
+        for (int i = 0; i < 15; i++) {
+            iterator.next();
+        }
+        // the query can be used again while the stream is open
+        assertRestored(query, 1, Integer.MAX_VALUE);
+        assertEquals(99, query.getResultList().size());
+        assertEquals(Integer.valueOf(16), iterator.next());
+    }
+
+    @Test
+    public void throwsTheFailureOfTheFirstPage() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        query.setFirstResult(2).setFetchSize(10);
+        query.failingExecution = 1;
+
+        try {
+            query.getResultStream();
+            fail();
+        } catch (QueryTimeoutException expected) {
+        }
+        assertRestored(query, 2, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void throwsTheFailureOfALaterPage() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        query.setFetchSize(10);
+        query.failingExecution = 2;
+
+        List<Integer> consumed = new ArrayList<Integer>();
+        Iterator<Integer> iterator = query.getResultStream().iterator();
+        try {
+            while (iterator.hasNext()) {
+                consumed.add(iterator.next());
+            }
+            fail();
+        } catch (QueryTimeoutException expected) {
+        }
+        assertEquals(query.rows.subList(0, 10), consumed);
+        assertRestored(query, 0, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void ignoresFailuresToRestoreAClosedQuery() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        query.setFetchSize(10);
+
+        Iterator<Integer> iterator = query.getResultStream().iterator();
+        query.closed = true;
+        for (int i = 0; i < 10; i++) {
+            iterator.next();
+        }
+        try {
+            iterator.next();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void readsTheFetchSizeHint() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(0);
+        assertEquals(PagedResultIterator.DEFAULT_FETCH_SIZE, query.getFetchSize());
+
+        query.setFetchSize(25);
+        assertEquals(25, query.getFetchSize());
+        query.setHint(PagedResultIterator.FETCH_SIZE_HINT, "50");
+        assertEquals(50, query.getFetchSize());
+        query.setHint(PagedResultIterator.FETCH_SIZE_HINT, "many");
+        assertEquals(PagedResultIterator.DEFAULT_FETCH_SIZE, query.getFetchSize());
+        query.setHint(PagedResultIterator.FETCH_SIZE_HINT, -1);
+        assertEquals(PagedResultIterator.DEFAULT_FETCH_SIZE, query.getFetchSize());
+
+        try {
+            query.setFetchSize(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import static javax.persistence.QueryResultPublisherTest.assertRestored;
+import static javax.persistence.QueryResultPublisherTest.assertWindows;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class PagedScrollableResultsTest {
+
+    @Test
+    public void scrollsForwardByFetchSize() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        query.setFetchSize(10);
+        ScrollableResults<Integer> results = query.scroll(ScrollMode.FORWARD_ONLY);
+
+        assertEquals(query.rows, readForward(results));
+        assertWindows(query, 0, 10, 10, 10, 20, 10);
+        assertEquals(-1, results.getRowNumber());
+        assertFalse(results.next());
+        assertEquals(3, query.executions.size());
+        assertRestored(query, 0, Integer.MAX_VALUE);
+        results.close();
+    }
+
+    @Test
+    public void scrollsWithinTheWindowOfTheQuery() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(30);
+        query.setFirstResult(3).setMaxResults(12).setFetchSize(10);
+        ScrollableResults<Integer> results = query.scroll(ScrollMode.SCROLL_INSENSITIVE);
+
+        assertEquals(query.rows.subList(3, 15), readForward(results));
+        // the size is known once max results are reached
+        assertWindows(query, 3, 10, 13, 2);
+        assertTrue(results.previous());
+        assertEquals(11, results.getRowNumber());
+        assertEquals(Integer.valueOf(14), results.get());
+        assertEquals(2, query.executions.size());
+        assertRestored(query, 3, 12);
+    }
+
+    @Test
+    public void fetchesTheWindowEndingAtTheRowWhenMovingBackward() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(100);
+        query.setFetchSize(10);
+        ScrollableResults<Integer> results = query.scroll(ScrollMode.SCROLL_INSENSITIVE);
+
+        assertTrue(results.setRowNumber(50));
+        assertTrue(results.previous());
+        assertEquals(Integer.valueOf(49), results.get());
+        assertWindows(query, 50, 10, 40, 10);
+
+        // served from the window
+        assertTrue(results.scroll(-9));
+        assertEquals(Integer.valueOf(40), results.get());
+        assertEquals(2, query.executions.size());
+
+        assertTrue(results.setRowNumber(3));
+        assertTrue(results.previous());
+        assertEquals(Integer.valueOf(2), results.get());
+        assertFalse(results.scroll(-10));
+        assertEquals(-1, results.getRowNumber());
+        assertTrue(results.next());
+        assertEquals(Integer.valueOf(0), results.get());
+    }
+
+    @Test
+    public void scrollsBackFromAfterTheEnd() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        query.setFetchSize(10);
+        ScrollableResults<Integer> results = query.scroll(ScrollMode.SCROLL_SENSITIVE);
+
+        readForward(results);
+        assertTrue(results.scroll(-3));
+        assertEquals(22, results.getRowNumber());
+        assertEquals(Integer.valueOf(22), results.get());
+    }
+
+    @Test
+    public void findsTheSizeByBinarySearch() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        query.setFetchSize(10);
+        ScrollableResults<Integer> results = query.scroll(ScrollMode.SCROLL_INSENSITIVE);
+
+        assertFalse(results.setRowNumber(100000));
+        assertEquals(-1, results.getRowNumber());
+        assertTrue(results.previous());
+        assertEquals(24, results.getRowNumber());
+        assertEquals(Integer.valueOf(24), results.get());
+        assertTrue("executions: " + query.executions.size(), query.executions.size() <= 20);
+        assertRestored(query, 0, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void findsTheSizeOfAFullLastWindow() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(20);
+        query.setFetchSize(10);
+        ScrollableResults<Integer> results = query.scroll(ScrollMode.SCROLL_INSENSITIVE);
+
+        assertFalse(results.setRowNumber(1000));
+        assertTrue(results.scroll(-2));
+        assertEquals(Integer.valueOf(18), results.get());
+    }
+
+    @Test
+    public void findsNoRowsOfEmptyResults() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(0);
+        ScrollableResults<Integer> results = query.scroll(ScrollMode.SCROLL_INSENSITIVE);
+
+        assertFalse(results.next());
+        assertFalse(results.previous());
+        assertFalse(results.setRowNumber(10));
+        assertFalse(results.previous());
+        assertEquals(-1, results.getRowNumber());
+    }
+
+    @Test
+    public void doesNotOverflowAtTheLastRowNumber() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        query.setFirstResult(5).setFetchSize(10);
+        ScrollableResults<Integer> results = query.scroll(ScrollMode.SCROLL_INSENSITIVE);
+
+        assertFalse(results.setRowNumber(Integer.MAX_VALUE));
+        assertFalse(results.next());
+        assertFalse(results.scroll(Integer.MAX_VALUE));
+        // no row can be addressed there, so the query is not executed
+        assertTrue(query.executions.isEmpty());
+
+        assertTrue(results.previous());
+        assertEquals(19, results.getRowNumber());
+        assertEquals(Integer.valueOf(24), results.get());
+        for (int[] execution : query.executions) {
+            assertTrue(execution[0] >= 0);
+            assertTrue(execution[1] > 0);
+        }
+        assertRestored(query, 5, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void forwardOnlyRejectsMovingBackward() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        ScrollableResults<Integer> results = query.scroll(ScrollMode.FORWARD_ONLY);
+
+        assertTrue(results.setRowNumber(5));
+        assertTrue(results.setRowNumber(5));
+        try {
+            results.previous();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            results.scroll(-1);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            results.setRowNumber(4);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertTrue(results.scroll(2));
+        assertEquals(Integer.valueOf(7), results.get());
+    }
+
+    @Test
+    public void restoresTheWindowAfterAFailure() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        query.setFirstResult(2).setMaxResults(20).setFetchSize(10);
+        query.failingExecution = 2;
+        ScrollableResults<Integer> results = query.scroll(ScrollMode.SCROLL_INSENSITIVE);
+
+        assertTrue(results.setRowNumber(9));
+        try {
+            results.setRowNumber(19);
+            fail();
+        } catch (QueryTimeoutException expected) {
+        }
+        assertRestored(query, 2, 20);
+        assertTrue(results.next());
+        assertEquals(10, results.getRowNumber());
+        assertEquals(Integer.valueOf(12), results.get());
+    }
+
+    @Test
+    public void rejectsInvalidUse() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        try {
+            query.scroll(null);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        ScrollableResults<Integer> results = query.scroll(ScrollMode.SCROLL_INSENSITIVE);
+        try {
+            results.get();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            results.setRowNumber(-1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        results.close();
+        results.close();
+        try {
+            results.next();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            results.getRowNumber();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertTrue(query.executions.isEmpty());
+    }
+
+    private static List<Integer> readForward(ScrollableResults<Integer> results) {
+        List<Integer> rows = new ArrayList<Integer>();
+        while (results.next()) {
+            assertEquals(rows.size(), results.getRowNumber());
+            rows.add(results.get());
+        }
+        return rows;
+    }
+}
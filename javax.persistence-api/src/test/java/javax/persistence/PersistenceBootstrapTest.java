@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.spi.PersistenceProvider;
+import javax.persistence.spi.PersistenceProviderResolver;
+import javax.persistence.spi.PersistenceProviderResolverHolder;
+import javax.persistence.spi.PersistenceUnitInfo;
+import javax.persistence.spi.ProviderUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PersistenceBootstrapTest {
+
+    private final AtomicInteger closed = new AtomicInteger();
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        final List<PersistenceProvider> providers = Arrays.<PersistenceProvider>asList(new TestProvider());
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(new PersistenceProviderResolver() {
+            public List<PersistenceProvider> getPersistenceProviders() {
+                return providers;
+            }
+
+            public void clearCachedProviders() {
+            }
+        });
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(null);
+    }
+
+    @Test
+    public void createsAllFactories() throws Exception {
+        Map<String, Map<?, ?>> units = new LinkedHashMap<String, Map<?, ?>>();
+        units.put("b", null);
+        units.put("a", Collections.emptyMap());
+        Map<String, EntityManagerFactory> emfs = Persistence.createEntityManagerFactoriesAsync(units, executor)
+                .toCompletableFuture().get();
+        assertEquals(Arrays.asList("b", "a"), Arrays.asList(emfs.keySet().toArray()));
+        assertEquals(0, closed.get());
+    }
+
+    /**
+     * The failure that happened first is reported, even if a later one
+     * comes first in the map, and the created factories are closed.
+     */
+    @Test
+    public void reportsTheFirstFailureAndClosesTheOthers() throws Exception {
+        Map<String, Map<?, ?>> units = new LinkedHashMap<String, Map<?, ?>>();
+        units.put("fail-slow", null);
+        units.put("fail-fast", null);
+        units.put("ok", null);
+        try {
+            Persistence.createEntityManagerFactoriesAsync(units, executor).toCompletableFuture().get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof PersistenceException);
+            assertEquals("fail-fast", e.getCause().getMessage());
+        }
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    public void completesExceptionallyWithoutProvider() throws Exception {
+        try {
+            Persistence.createEntityManagerFactoryAsync("unknown", null, executor).toCompletableFuture().join();
+            fail();
+        } catch (CompletionException e) {
+            assertSame(PersistenceException.class, e.getCause().getClass());
+        }
+    }
+
+    /**
+     * Accepts every unit except "unknown"; units named "fail-..." fail,
+     * the slow one only after a delay.
+     */
+    class TestProvider implements PersistenceProvider {
+
+        @SuppressWarnings("rawtypes")
+        public EntityManagerFactory createEntityManagerFactory(String emName, Map map) {
+            if ("unknown".equals(emName)) {
+                return null;
+            }
+            if ("fail-slow".equals(emName)) {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (emName.startsWith("fail-")) {
+                throw new PersistenceException(emName);
+            }
+            return (EntityManagerFactory) Proxy.newProxyInstance(PersistenceBootstrapTest.class.getClassLoader(),
+                    new Class<?>[] { EntityManagerFactory.class }, new InvocationHandler() {
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            if (method.getName().equals("close")) {
+                                closed.incrementAndGet();
+                            }
+                            return null;
+                        }
+                    });
+        }
+
+        @SuppressWarnings("rawtypes")
+        public EntityManagerFactory createContainerEntityManagerFactory(PersistenceUnitInfo info, Map map) {
+            return null;
+        }
+
+        @SuppressWarnings("rawtypes")
+        public void generateSchema(PersistenceUnitInfo info, Map map) {
+        }
+
+        @SuppressWarnings("rawtypes")
+        public boolean generateSchema(String persistenceUnitName, Map map) {
+            return false;
+        }
+
+        public ProviderUtil getProviderUtil() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.spi.PersistenceProvider;
+import javax.persistence.spi.PersistenceProviderResolver;
+import javax.persistence.spi.PersistenceProviderResolverHolder;
+import javax.persistence.spi.PersistenceUnitInfo;
+import javax.persistence.spi.ProviderUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PersistenceRoutingTest {
+
+    private final List<String> probes = new ArrayList<String>();
+
+    private ClassLoader contextLoader;
+
+    @Before
+    public void setUp() {
+        final List<PersistenceProvider> providers = Arrays.<PersistenceProvider>asList(new FirstProvider(), new SecondProvider());
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(new PersistenceProviderResolver() {
+            public List<PersistenceProvider> getPersistenceProviders() {
+                return providers;
+            }
+
+            public void clearCachedProviders() {
+            }
+        });
+        contextLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void tearDown() {
+        Thread.currentThread().setContextClassLoader(contextLoader);
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(null);
+    }
+
+    /**
+     * A provider found for a unit is asked first again, but only for the
+     * context class loader it was found with.
+     */
+    @Test
+    public void routesPerClassLoader() {
+        ClassLoader application = newApplicationLoader();
+        Thread.currentThread().setContextClassLoader(application);
+        Persistence.createEntityManagerFactory("second");
+        assertEquals(Arrays.asList("first", "second"), probes);
+
+        probes.clear();
+        Persistence.createEntityManagerFactory("second");
+        assertEquals(Arrays.asList("second"), probes);
+
+        probes.clear();
+        Thread.currentThread().setContextClassLoader(newApplicationLoader());
+        Persistence.createEntityManagerFactory("second");
+        assertEquals(Arrays.asList("first", "second"), probes);
+    }
+
+    /**
+     * A provider forced by the javax.persistence.provider property is not
+     * remembered for later calls without the property.
+     */
+    @Test
+    public void doesNotRouteRequestedProviders() {
+        Thread.currentThread().setContextClassLoader(newApplicationLoader());
+        Persistence.createEntityManagerFactory("any",
+                Collections.singletonMap("javax.persistence.provider", SecondProvider.class.getName()));
+        assertEquals(Arrays.asList("second"), probes);
+
+        probes.clear();
+        Persistence.createEntityManagerFactory("any");
+        assertEquals(Arrays.asList("first"), probes);
+    }
+
+    private static ClassLoader newApplicationLoader() {
+        return new URLClassLoader(new URL[0], PersistenceRoutingTest.class.getClassLoader());
+    }
+
+    /**
+     * Accepts every persistence unit except the one named "second".
+     */
+    class FirstProvider extends RecordingProvider {
+
+        FirstProvider() {
+            super("first");
+        }
+
+        boolean accepts(String emName) {
+            return !"second".equals(emName);
+        }
+    }
+
+    /**
+     * Accepts every persistence unit.
+     */
+    class SecondProvider extends RecordingProvider {
+
+        SecondProvider() {
+            super("second");
+        }
+
+        boolean accepts(String emName) {
+            return true;
+        }
+    }
+
+    abstract class RecordingProvider implements PersistenceProvider {
+
+        private final String name;
+
+        RecordingProvider(String name) {
+            this.name = name;
+        }
+
+        abstract boolean accepts(String emName);
+
+        @SuppressWarnings("rawtypes")
+        public EntityManagerFactory createEntityManagerFactory(String emName, Map map) {
+            probes.add(name);
+            if (!accepts(emName)) {
+                return null;
+            }
+            return (EntityManagerFactory) Proxy.newProxyInstance(PersistenceRoutingTest.class.getClassLoader(),
+                    new Class<?>[] { EntityManagerFactory.class }, new InvocationHandler() {
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            return null;
+                        }
+                    });
+        }
+
+        @SuppressWarnings("rawtypes")
+        public EntityManagerFactory createContainerEntityManagerFactory(PersistenceUnitInfo info, Map map) {
+            return null;
+        }
+
+        @SuppressWarnings("rawtypes")
+        public void generateSchema(PersistenceUnitInfo info, Map map) {
+        }
+
+        @SuppressWarnings("rawtypes")
+        public boolean generateSchema(String persistenceUnitName, Map map) {
+            return false;
+        }
+
+        public ProviderUtil getProviderUtil() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.spi.LoadState;
+import javax.persistence.spi.PersistenceProvider;
+import javax.persistence.spi.PersistenceProviderResolver;
+import javax.persistence.spi.PersistenceProviderResolverHolder;
+import javax.persistence.spi.PersistenceUnitInfo;
+import javax.persistence.spi.ProviderUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PersistenceUtilTest {
+
+    private final List<String> calls = new ArrayList<String>();
+
+    private RecordingProvider first;
+
+    private RecordingProvider second;
+
+    @Before
+    public void setUp() {
+        first = new RecordingProvider("first");
+        second = new RecordingProvider("second");
+        final List<PersistenceProvider> providers = Arrays.<PersistenceProvider>asList(first, second);
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(new PersistenceProviderResolver() {
+            public List<PersistenceProvider> getPersistenceProviders() {
+                return providers;
+            }
+
+            public void clearCachedProviders() {
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(null);
+    }
+
+    /**
+     * Once a provider owns an entity class, it is asked first.
+     */
+    @Test
+    public void asksTheOwnerFirst() {
+        Entity entity = new Entity();
+        second.withoutReference = LoadState.NOT_LOADED;
+        assertFalse(Persistence.getPersistenceUtil().isLoaded(entity, "name"));
+        calls.clear();
+
+        assertFalse(Persistence.getPersistenceUtil().isLoaded(entity, "name"));
+        assertEquals(Arrays.asList("second.withoutReference"), calls);
+    }
+
+    /**
+     * When the owner cannot tell without a reference, no provider may be
+     * asked with a reference before all were asked without one.
+     */
+    @Test
+    public void keepsTheTwoPassOrder() {
+        Entity entity = new Entity();
+        second.withoutReference = LoadState.LOADED;
+        assertTrue(Persistence.getPersistenceUtil().isLoaded(entity, "name"));
+        calls.clear();
+
+        second.withoutReference = LoadState.UNKNOWN;
+        second.withReference = LoadState.LOADED;
+        assertTrue(Persistence.getPersistenceUtil().isLoaded(entity, "name"));
+        assertEquals(Arrays.asList(
+                "second.withoutReference",
+                "first.withoutReference",
+                "second.withoutReference",
+                "first.withReference",
+                "second.withReference"), calls);
+    }
+
+    static class Entity {
+    }
+
+    class RecordingProvider implements PersistenceProvider, ProviderUtil {
+
+        private final String name;
+
+        LoadState withoutReference = LoadState.UNKNOWN;
+
+        LoadState withReference = LoadState.UNKNOWN;
+
+        RecordingProvider(String name) {
+            this.name = name;
+        }
+
+        public LoadState isLoadedWithoutReference(Object entity, String attributeName) {
+            calls.add(name + ".withoutReference");
+            return withoutReference;
+        }
+
+        public LoadState isLoadedWithReference(Object entity, String attributeName) {
+            calls.add(name + ".withReference");
+            return withReference;
+        }
+
+        public LoadState isLoaded(Object entity) {
+            calls.add(name + ".isLoaded");
+            return LoadState.UNKNOWN;
+        }
+
+        public ProviderUtil getProviderUtil() {
+            return this;
+        }
+
+        @SuppressWarnings("rawtypes")
+        public EntityManagerFactory createEntityManagerFactory(String emName, Map map) {
+            return null;
+        }
+
+        @SuppressWarnings("rawtypes")
+        public EntityManagerFactory createContainerEntityManagerFactory(PersistenceUnitInfo info, Map map) {
+            return null;
+        }
+
+        @SuppressWarnings("rawtypes")
+        public void generateSchema(PersistenceUnitInfo info, Map map) {
+        }
+
+        @SuppressWarnings("rawtypes")
+        public boolean generateSchema(String persistenceUnitName, Map map) {
+            return false;
+        }
+    }
+}
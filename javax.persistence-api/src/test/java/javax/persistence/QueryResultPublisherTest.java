@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class QueryResultPublisherTest {
+
+    private static final Executor DIRECT = new Executor() {
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    @Test
+    public void emitsOnlyWhatIsRequested() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        query.setFetchSize(10);
+        TestSubscriber subscriber = subscribe(query, DIRECT);
+
+        subscriber.subscription.request(3);
+        assertEquals(range(0, 3), subscriber.items);
+        assertWindows(query, 0, 10);
+
+        // served from the fetched page
+        subscriber.subscription.request(7);
+        assertEquals(range(0, 10), subscriber.items);
+        assertEquals(1, query.executions.size());
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(100);
+        assertEquals(range(0, 25), subscriber.items);
+        assertWindows(query, 0, 10, 10, 100);
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        assertRestored(query, 0, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void pagesWithinTheWindowOfTheQuery() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(30);
+        query.setFirstResult(5).setMaxResults(12).setFetchSize(4);
+        TestSubscriber subscriber = subscribe(query, DIRECT);
+
+        subscriber.subscription.request(1);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(range(5, 17), subscriber.items);
+        assertTrue(subscriber.completed);
+        assertWindows(query, 5, 4, 9, 8);
+        assertRestored(query, 5, 12);
+    }
+
+    @Test
+    public void completesEmptyResults() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(0);
+        TestSubscriber subscriber = subscribe(query, DIRECT);
+
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.items.isEmpty());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void limitsThePageSize() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(2500);
+        TestSubscriber subscriber = subscribe(query, DIRECT);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(2500, subscriber.items.size());
+        assertWindows(query, 0, QueryResultPublisher.MAX_PAGE_SIZE, 1000, QueryResultPublisher.MAX_PAGE_SIZE,
+                2000, QueryResultPublisher.MAX_PAGE_SIZE);
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void stopsWhenCancelled() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        query.setFetchSize(10);
+        TestSubscriber subscriber = subscribe(query, DIRECT);
+        subscriber.cancelAfter = 3;
+
+        subscriber.subscription.request(20);
+        assertEquals(range(0, 3), subscriber.items);
+
+        subscriber.subscription.request(20);
+        assertEquals(range(0, 3), subscriber.items);
+        assertEquals(1, query.executions.size());
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+        assertRestored(query, 0, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void cancelBeforeRequestDoesNotExecute() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        TestSubscriber subscriber = subscribe(query, DIRECT);
+
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(1);
+        assertTrue(query.executions.isEmpty());
+        assertTrue(subscriber.items.isEmpty());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void signalsInvalidRequests() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        TestSubscriber subscriber = subscribe(query, DIRECT);
+
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(query.executions.isEmpty());
+
+        // terminated
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.items.isEmpty());
+        assertEquals(1, subscriber.signals);
+    }
+
+    @Test
+    public void signalsQueryFailures() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        query.setFirstResult(2).setFetchSize(10);
+        query.failingExecution = 2;
+        TestSubscriber subscriber = subscribe(query, DIRECT);
+
+        subscriber.subscription.request(10);
+        subscriber.subscription.request(10);
+        assertEquals(range(2, 12), subscriber.items);
+        assertWindows(query, 2, 10, 12, 10);
+        assertTrue(subscriber.error instanceof QueryTimeoutException);
+        assertFalse(subscriber.completed);
+        assertRestored(query, 2, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void signalsFailuresOfClosedQueries() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        query.setFetchSize(10);
+        TestSubscriber subscriber = subscribe(query, DIRECT);
+
+        subscriber.subscription.request(10);
+        query.closed = true;
+        subscriber.subscription.request(10);
+        assertEquals(range(0, 10), subscriber.items);
+        assertTrue(subscriber.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void signalsRejectedExecution() {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(25);
+        TestSubscriber subscriber = subscribe(query, new Executor() {
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.error instanceof RejectedExecutionException);
+        assertTrue(query.executions.isEmpty());
+    }
+
+    @Test
+    public void rejectsNullSubscriber() {
+        try {
+            new QueryResultPublisher<Integer>(TestTypedQuery.ofSize(1), DIRECT).subscribe(null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    @Test
+    public void emitsOnTheDefaultExecutor() throws InterruptedException {
+        TestTypedQuery<Integer> query = TestTypedQuery.ofSize(250);
+        query.setFetchSize(7);
+        TestSubscriber subscriber = new TestSubscriber();
+        query.getResultPublisher().subscribe(subscriber);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertTrue(subscriber.terminated.await(10, TimeUnit.SECONDS));
+        assertEquals(range(0, 250), subscriber.items);
+        assertTrue(subscriber.completed);
+    }
+
+    private static TestSubscriber subscribe(TestTypedQuery<Integer> query, Executor executor) {
+        TestSubscriber subscriber = new TestSubscriber();
+        new QueryResultPublisher<Integer>(query, executor).subscribe(subscriber);
+        return subscriber;
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> range = new ArrayList<Integer>();
+        for (int i = from; i < to; i++) {
+            range.add(i);
+        }
+        return range;
+    }
+
+    /**
+     * Checks the first result and max results of every execution.
+     */
+    static void assertWindows(TestTypedQuery<?> query, int... windows) {
+        assertEquals(windows.length / 2, query.executions.size());
+        for (int i = 0; i < windows.length / 2; i++) {
+            assertEquals("first result of execution " + i, windows[i * 2], query.executions.get(i)[0]);
+            assertEquals("max results of execution " + i, windows[i * 2 + 1], query.executions.get(i)[1]);
+        }
+    }
+
+    static void assertRestored(TestTypedQuery<?> query, int firstResult, int maxResults) {
+        assertEquals(firstResult, query.getFirstResult());
+        assertEquals(maxResults, query.getMaxResults());
+    }
+
+    private static final class TestSubscriber implements ResultPublisher.Subscriber<Integer> {
+
+        final List<Integer> items = Collections.synchronizedList(new ArrayList<Integer>());
+
+        final CountDownLatch terminated = new CountDownLatch(1);
+
+        volatile ResultPublisher.Subscription subscription;
+
+        volatile boolean completed;
+
+        volatile Throwable error;
+
+        /**
+         * The number of terminal signals.
+         */
+        volatile int signals;
+
+        int cancelAfter = -1;
+
+        public void onSubscribe(ResultPublisher.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        public void onNext(Integer item) {
+            items.add(item);
+            if (items.size() == cancelAfter) {
+                subscription.cancel();
+            }
+        }
+
+        public void onError(Throwable throwable) {
+            error = throwable;
+            signals++;
+            terminated.countDown();
+        }
+
+        public void onComplete() {
+            completed = true;
+            signals++;
+            terminated.countDown();
+        }
+    }
+}
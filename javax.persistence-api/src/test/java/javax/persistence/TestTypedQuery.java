@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A query over a list which records the window of every execution, for the
+ * tests of the default paging implementations.
+ */
+class TestTypedQuery<X> implements TypedQuery<X> {
+
+    final List<X> rows;
+
+    /**
+     * The first result and max results of every execution.
+     */
+    final List<int[]> executions = Collections.synchronizedList(new ArrayList<int[]>());
+
+    private final Map<String, Object> hints = new HashMap<String, Object>();
+
+    private volatile int firstResult;
+
+    private volatile int maxResults = Integer.MAX_VALUE;
+
+    /**
+     * The execution which fails, starting at 1, or 0.
+     */
+    volatile int failingExecution;
+
+    volatile boolean closed;
+
+    TestTypedQuery(List<X> rows) {
+        this.rows = rows;
+    }
+
+    static TestTypedQuery<Integer> ofSize(int size) {
+        List<Integer> rows = new ArrayList<Integer>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(i);
+        }
+        return new TestTypedQuery<Integer>(rows);
+    }
+
+    public List<X> getResultList() {
+        checkOpen();
+        executions.add(new int[] { firstResult, maxResults });
+        if (executions.size() == failingExecution) {
+            throw new QueryTimeoutException("execution " + failingExecution);
+        }
+        int from = Math.min(firstResult, rows.size());
+        int to = (int) Math.min((long) from + maxResults, rows.size());
+        return new ArrayList<X>(rows.subList(from, to));
+    }
+
+    public X getSingleResult() {
+        throw new UnsupportedOperationException();
+    }
+
+    public int executeUpdate() {
+        throw new UnsupportedOperationException();
+    }
+
+    public TypedQuery<X> setMaxResults(int maxResult) {
+        checkOpen();
+        if (maxResult < 0) {
+            throw new IllegalArgumentException("maxResult: " + maxResult);
+        }
+        this.maxResults = maxResult;
+        return this;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public TypedQuery<X> setFirstResult(int startPosition) {
+        checkOpen();
+        if (startPosition < 0) {
+            throw new IllegalArgumentException("startPosition: " + startPosition);
+        }
+        this.firstResult = startPosition;
+        return this;
+    }
+
+    public int getFirstResult() {
+        return firstResult;
+    }
+
+    public TypedQuery<X> setHint(String hintName, Object value) {
+        hints.put(hintName, value);
+        return this;
+    }
+
+    public Map<String, Object> getHints() {
+        return hints;
+    }
+
+    public <T> TypedQuery<X> setParameter(Parameter<T> param, T value) {
+        throw new UnsupportedOperationException();
+    }
+
+    public TypedQuery<X> setParameter(Parameter<Calendar> param, Calendar value, TemporalType temporalType) {
+        throw new UnsupportedOperationException();
+    }
+
+    public TypedQuery<X> setParameter(Parameter<Date> param, Date value, TemporalType temporalType) {
+        throw new UnsupportedOperationException();
+    }
+
+    public TypedQuery<X> setParameter(String name, Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    public TypedQuery<X> setParameter(String name, Calendar value, TemporalType temporalType) {
+        throw new UnsupportedOperationException();
+    }
+
+    public TypedQuery<X> setParameter(String name, Date value, TemporalType temporalType) {
+        throw new UnsupportedOperationException();
+    }
+
+    public TypedQuery<X> setParameter(int position, Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    public TypedQuery<X> setParameter(int position, Calendar value, TemporalType temporalType) {
+        throw new UnsupportedOperationException();
+    }
+
+    public TypedQuery<X> setParameter(int position, Date value, TemporalType temporalType) {
+        throw new UnsupportedOperationException();
+    }
+
+    public Set<Parameter<?>> getParameters() {
+        return Collections.emptySet();
+    }
+
+    public Parameter<?> getParameter(String name) {
+        throw new IllegalArgumentException(name);
+    }
+
+    public <T> Parameter<T> getParameter(String name, Class<T> type) {
+        throw new IllegalArgumentException(name);
+    }
+
+    public Parameter<?> getParameter(int position) {
+        throw new IllegalArgumentException(String.valueOf(position));
+    }
+
+    public <T> Parameter<T> getParameter(int position, Class<T> type) {
+        throw new IllegalArgumentException(String.valueOf(position));
+    }
+
+    public boolean isBound(Parameter<?> param) {
+        return false;
+    }
+
+    public <T> T getParameterValue(Parameter<T> param) {
+        throw new IllegalArgumentException();
+    }
+
+    public Object getParameterValue(String name) {
+        throw new IllegalArgumentException(name);
+    }
+
+    public Object getParameterValue(int position) {
+        throw new IllegalArgumentException(String.valueOf(position));
+    }
+
+    public TypedQuery<X> setFlushMode(FlushModeType flushMode) {
+        throw new UnsupportedOperationException();
+    }
+
+    public FlushModeType getFlushMode() {
+        return FlushModeType.AUTO;
+    }
+
+    public TypedQuery<X> setLockMode(LockModeType lockMode) {
+        throw new UnsupportedOperationException();
+    }
+
+    public LockModeType getLockMode() {
+        return LockModeType.NONE;
+    }
+
+    public <T> T unwrap(Class<T> cls) {
+        throw new PersistenceException("Unsupported: " + cls);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("closed");
+        }
+    }
+}
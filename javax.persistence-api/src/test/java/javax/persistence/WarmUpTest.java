@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import org.junit.Test;
+
+public class WarmUpTest {
+
+    @NamedQuery(name = "Customer.all", query = "SELECT c FROM Customer c")
+    @NamedEntityGraph
+    @Entity
+    public static class Customer {
+
+        @Convert(converter = YesNoConverter.class)
+        boolean active;
+    }
+
+    public static class YesNoConverter {
+    }
+
+    private final Map<String, String> requested = new ConcurrentHashMap<String, String>();
+
+    private final Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+
+    private final AtomicInteger openEntityManagers = new AtomicInteger();
+
+    private volatile String failingQuery;
+
+    @Test
+    public void warmsUpAllTargets() {
+        WarmUpResult result = EntityManagerFactoryWarmUp.warmUp(createFactory(), WarmUpOptions.all());
+
+        assertEquals("Customer.all", requested.get("createNamedQuery"));
+        assertEquals("Customer", requested.get("getEntityGraph"));
+        assertEquals(0, openEntityManagers.get());
+        assertEquals(4, result.getItems().size());
+        assertTrue(result.getFailures().isEmpty());
+        Map<WarmUpOptions.Target, String> names = new HashMap<WarmUpOptions.Target, String>();
+        for (WarmUpResult.Item item : result.getItems()) {
+            assertNull(item.getFailure());
+            assertNotNull(item.getDuration());
+            names.put(item.getTarget(), item.getName());
+        }
+        assertEquals(Customer.class.getName(), names.get(WarmUpOptions.Target.METAMODEL));
+        assertEquals(YesNoConverter.class.getName(), names.get(WarmUpOptions.Target.CONVERTERS));
+    }
+
+    @Test
+    public void reportsProxiesAsSkipped() {
+        WarmUpResult result = EntityManagerFactoryWarmUp.warmUp(createFactory(), WarmUpOptions.all());
+
+        assertEquals(EnumSet.of(WarmUpOptions.Target.PROXIES), result.getSkippedTargets());
+        assertFalse(result.isSuccessful());
+
+        result = EntityManagerFactoryWarmUp.warmUp(createFactory(),
+                WarmUpOptions.all().withTargets(WarmUpOptions.Target.METAMODEL));
+        assertTrue(result.getSkippedTargets().isEmpty());
+        assertTrue(result.isSuccessful());
+    }
+
+    @Test
+    public void recordsFailures() {
+        failingQuery = "Customer.all";
+        WarmUpResult result = EntityManagerFactoryWarmUp.warmUp(createFactory(),
+                WarmUpOptions.all().withTargets(WarmUpOptions.Target.NAMED_QUERIES, WarmUpOptions.Target.METAMODEL));
+
+        assertFalse(result.isSuccessful());
+        List<WarmUpResult.Item> failures = result.getFailures();
+        assertEquals(1, failures.size());
+        assertEquals(WarmUpOptions.Target.NAMED_QUERIES, failures.get(0).getTarget());
+        assertTrue(failures.get(0).getFailure() instanceof IllegalArgumentException);
+        assertEquals(0, openEntityManagers.get());
+    }
+
+    @Test
+    public void defaultExecutorDoesNotUseCommonPool() {
+        EntityManagerFactoryWarmUp.warmUp(createFactory(), WarmUpOptions.all());
+
+        assertFalse(threads.isEmpty());
+        for (Thread thread : threads) {
+            assertFalse(thread.getName(), thread instanceof ForkJoinWorkerThread);
+        }
+    }
+
+    private EntityManagerFactory createFactory() {
+        final ManagedType<?> type = proxy(ManagedType.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getJavaType")) {
+                    return Customer.class;
+                }
+                if (method.getName().equals("getAttributes")) {
+                    return Collections.emptySet();
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        final Metamodel metamodel = proxy(Metamodel.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getManagedTypes")) {
+                    return Collections.singleton(type);
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        return proxy(EntityManagerFactory.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getMetamodel")) {
+                    return metamodel;
+                }
+                if (method.getName().equals("createEntityManager")) {
+                    openEntityManagers.incrementAndGet();
+                    return createEntityManager();
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private EntityManager createEntityManager() {
+        return proxy(EntityManager.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                threads.add(Thread.currentThread());
+                if (method.getName().equals("close")) {
+                    openEntityManagers.decrementAndGet();
+                    return null;
+                }
+                if (method.getName().equals("createNamedQuery") || method.getName().equals("getEntityGraph")) {
+                    if (args[0].equals(failingQuery)) {
+                        throw new IllegalArgumentException((String) args[0]);
+                    }
+                    requested.put(method.getName(), (String) args[0]);
+                    return null;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(WarmUpTest.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+}
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.instrument.IllegalClassFormatException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.ProtectionDomain;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachingClassTransformerTest {
+
+    private static final byte[] CLASS_FILE = { 1, 2, 3 };
+
+    private File cacheDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheDirectory = new File(Files.createTempDirectory("transform-cache").toFile(), "cache");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = cacheDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        cacheDirectory.delete();
+        cacheDirectory.getParentFile().delete();
+    }
+
+    @Test
+    public void appliesTheTransformersInOrder() throws Exception {
+        AppendingTransformer first = new AppendingTransformer((byte) 4);
+        AppendingTransformer second = new AppendingTransformer((byte) 5);
+        CachingClassTransformer transformer = newTransformer("unit", "v1", first, second);
+        assertArrayEquals(new byte[] { 1, 2, 3, 4, 5 }, transform(transformer, "a/A", CLASS_FILE));
+        assertEquals(1, first.calls.get());
+        assertEquals(1, second.calls.get());
+        assertTrue(cacheDirectory.isDirectory());
+    }
+
+    @Test
+    public void servesRepeatedTransformationsFromTheCache() throws Exception {
+        AppendingTransformer appending = new AppendingTransformer((byte) 4);
+        assertArrayEquals(new byte[] { 1, 2, 3, 4 }, transform(newTransformer("unit", "v1", appending), "a/A", CLASS_FILE));
+
+        // a new instance, as after a restart of the JVM
+        assertArrayEquals(new byte[] { 1, 2, 3, 4 }, transform(newTransformer("unit", "v1", appending), "a/A", CLASS_FILE));
+        assertEquals(1, appending.calls.get());
+
+        // another class file, class name, unit or fingerprint misses
+        transform(newTransformer("unit", "v1", appending), "a/A", new byte[] { 9 });
+        transform(newTransformer("unit", "v1", appending), "a/B", CLASS_FILE);
+        transform(newTransformer("other", "v1", appending), "a/A", CLASS_FILE);
+        transform(newTransformer("unit", "v2", appending), "a/A", CLASS_FILE);
+        assertEquals(5, appending.calls.get());
+    }
+
+    @Test
+    public void cachesUnchangedClasses() throws Exception {
+        AppendingTransformer unchanged = new AppendingTransformer(null);
+        assertNull(transform(newTransformer("unit", "v1", unchanged), "a/A", CLASS_FILE));
+        assertNull(transform(newTransformer("unit", "v1", unchanged), "a/A", CLASS_FILE));
+        assertEquals(1, unchanged.calls.get());
+    }
+
+    @Test
+    public void rewritesCorruptCacheFiles() throws Exception {
+        AppendingTransformer appending = new AppendingTransformer((byte) 4);
+        transform(newTransformer("unit", "v1", appending), "a/A", CLASS_FILE);
+        File[] files = cacheDirectory.listFiles();
+        assertEquals(1, files.length);
+        byte[] content = Files.readAllBytes(files[0].toPath());
+        content[content.length - 1] = 7;
+        Files.write(files[0].toPath(), content);
+
+        assertArrayEquals(new byte[] { 1, 2, 3, 4 }, transform(newTransformer("unit", "v1", appending), "a/A", CLASS_FILE));
+        assertEquals(2, appending.calls.get());
+        assertArrayEquals(new byte[] { 1, 2, 3, 4 }, transform(newTransformer("unit", "v1", appending), "a/A", CLASS_FILE));
+        assertEquals(2, appending.calls.get());
+    }
+
+    @Test
+    public void createsTheCacheDirectoryForTheOwnerOnly() throws Exception {
+        transform(newTransformer("unit", "v1", new AppendingTransformer((byte) 4)), "a/A", CLASS_FILE);
+        assertTrue(cacheDirectory.isDirectory());
+        assertTrue(cacheDirectory.canWrite());
+        if (File.separatorChar == '/') {
+            assertEquals("rwx------", PosixFilePermissions.toString(
+                    Files.getPosixFilePermissions(cacheDirectory.toPath())));
+        }
+    }
+
+    @Test
+    public void transformsAllClassesOutsideTheCommonPool() throws Exception {
+        AppendingTransformer appending = new AppendingTransformer((byte) 4);
+        Map<String, byte[]> classFiles = new LinkedHashMap<String, byte[]>();
+        for (int i = 0; i < 8; i++) {
+            classFiles.put("a/C" + i, new byte[] { (byte) i });
+        }
+        classFiles.put("a/Unchanged", new byte[] { 0 });
+        appending.unchangedClassName = "a/Unchanged";
+
+        Map<String, byte[]> transformed = newTransformer("unit", "v1", appending).transformAll(null, classFiles, null);
+        assertEquals(8, transformed.size());
+        assertArrayEquals(new byte[] { 3, 4 }, transformed.get("a/C3"));
+        assertFalse(transformed.containsKey("a/Unchanged"));
+        assertFalse(appending.ranInCommonPool);
+    }
+
+    @Test
+    public void reportsTransformerFailures() throws Exception {
+        AppendingTransformer failing = new AppendingTransformer((byte) 4);
+        failing.failingClassName = "a/B";
+        Map<String, byte[]> classFiles = new LinkedHashMap<String, byte[]>();
+        classFiles.put("a/A", CLASS_FILE);
+        classFiles.put("a/B", CLASS_FILE);
+        try {
+            newTransformer("unit", "v1", failing).transformAll(null, classFiles, null);
+            fail();
+        } catch (IllegalClassFormatException e) {
+            assertEquals("a/B", e.getMessage());
+        }
+    }
+
+    private CachingClassTransformer newTransformer(String persistenceUnitName, String fingerprint, ClassTransformer... transformers) {
+        List<ClassTransformer> list = Arrays.asList(transformers);
+        return new CachingClassTransformer(list, persistenceUnitName, fingerprint, cacheDirectory);
+    }
+
+    private static byte[] transform(ClassTransformer transformer, String className, byte[] classfileBuffer) throws IllegalClassFormatException {
+        return transformer.transform(null, className, null, null, classfileBuffer);
+    }
+
+    /**
+     * Appends a byte to the class file, or leaves it unchanged if the byte
+     * is null.
+     */
+    static class AppendingTransformer implements ClassTransformer {
+
+        final AtomicInteger calls = new AtomicInteger();
+
+        private final Byte appended;
+
+        volatile String unchangedClassName;
+
+        volatile String failingClassName;
+
+        volatile boolean ranInCommonPool;
+
+        AppendingTransformer(Byte appended) {
+            this.appended = appended;
+        }
+
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                                ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
+            calls.incrementAndGet();
+            if (Thread.currentThread() instanceof ForkJoinWorkerThread) {
+                ranInCommonPool = true;
+            }
+            if (className.equals(failingClassName)) {
+                throw new IllegalClassFormatException(className);
+            }
+            if (appended == null || className.equals(unchangedClassName)) {
+                return null;
+            }
+            byte[] transformed = Arrays.copyOf(classfileBuffer, classfileBuffer.length + 1);
+            transformed[classfileBuffer.length] = appended;
+            return transformed;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Column;
+import javax.persistence.Converter;
+import javax.persistence.Embeddable;
+import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.Id;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.PersistenceException;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ManagedClassIndexTest {
+
+    private static final List<Class<?>> CLASSES = Arrays.<Class<?>>asList(
+            Customer.class, Address.class, Base.class, YesNoConverter.class, Listener.class);
+
+    private File root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("managed-classes").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        delete(root);
+    }
+
+    @Test
+    public void indexesAnnotatedClassesOfDirectories() throws IOException {
+        for (Class<?> type : CLASSES) {
+            copyClassFile(type, root);
+        }
+        writeIndex(root);
+
+        ManagedClassIndex index = ManagedClassIndex.read(root.toURI().toURL());
+        assertIndexed(index);
+    }
+
+    @Test
+    public void indexesAnnotatedClassesOfJarFiles() throws IOException {
+        File jar = new File(root, "entities.jar");
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            for (Class<?> type : CLASSES) {
+                out.putNextEntry(new JarEntry(getClassFileName(type)));
+                out.write(readClassFile(type));
+            }
+        } finally {
+            out.close();
+        }
+        // index the jar, then add the index to a copy, as a build would do
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        ManagedClassIndex.write(jar, indexBytes);
+        File indexedJar = new File(root, "indexed.jar");
+        out = new JarOutputStream(new FileOutputStream(indexedJar));
+        try {
+            out.putNextEntry(new JarEntry(ManagedClassIndex.INDEX_RESOURCE));
+            out.write(indexBytes.toByteArray());
+            for (Class<?> type : CLASSES) {
+                out.putNextEntry(new JarEntry(getClassFileName(type)));
+                out.write(readClassFile(type));
+            }
+        } finally {
+            out.close();
+        }
+
+        assertIndexed(ManagedClassIndex.read(indexedJar.toURI().toURL()));
+        assertNull(ManagedClassIndex.read(jar.toURI().toURL()));
+    }
+
+    @Test
+    public void ignoresStaleIndexes() throws IOException {
+        copyClassFile(Customer.class, root);
+        writeIndex(root);
+        URL rootUrl = root.toURI().toURL();
+        assertEquals(Arrays.asList(Customer.class.getName()), ManagedClassIndex.read(rootUrl).getClassNames());
+
+        copyClassFile(Address.class, root);
+        assertNull(ManagedClassIndex.read(rootUrl));
+    }
+
+    @Test
+    public void collectsTheClassesOfAllRoots() throws IOException {
+        copyClassFile(Customer.class, root);
+        writeIndex(root);
+        final URL rootUrl = root.toURI().toURL();
+        PersistenceUnitInfo unit = new DefaultPersistenceUnitInfo("unit", null, PersistenceUnitTransactionType.RESOURCE_LOCAL,
+                null, null, Collections.<String>emptyList(), Collections.<String>emptyList(), rootUrl,
+                Collections.<String>emptyList(), false, null, null, new Properties(), "2.2", null);
+        assertEquals(Arrays.asList(Customer.class.getName()), ManagedClassIndex.getManagedClassNames(unit));
+
+        new File(root, ManagedClassIndex.INDEX_RESOURCE).delete();
+        assertNull(ManagedClassIndex.getManagedClassNames(unit));
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws IOException {
+        File index = new File(root, ManagedClassIndex.INDEX_RESOURCE);
+        index.getParentFile().mkdirs();
+        Files.write(index.toPath(), new byte[] { 1, 2, 3, 4, 5, 6 });
+        try {
+            ManagedClassIndex.read(root.toURI().toURL());
+            fail();
+        } catch (PersistenceException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void rejectsUnknownAnnotations() throws IOException {
+        copyClassFile(Customer.class, root);
+        writeIndex(root);
+        try {
+            ManagedClassIndex.read(root.toURI().toURL()).getClassNames(Table.class);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static void assertIndexed(ManagedClassIndex index) {
+        assertEquals(Arrays.asList(Address.class.getName(), Base.class.getName(), Customer.class.getName(), YesNoConverter.class.getName()),
+                index.getClassNames());
+        assertEquals(Arrays.asList(Customer.class.getName()), index.getClassNames(Entity.class));
+        assertEquals(Arrays.asList(Address.class.getName()), index.getClassNames(Embeddable.class));
+        assertEquals(Arrays.asList(Base.class.getName()), index.getClassNames(MappedSuperclass.class));
+        assertEquals(Arrays.asList(YesNoConverter.class.getName()), index.getClassNames(Converter.class));
+    }
+
+    private static void writeIndex(File directory) throws IOException {
+        ManagedClassIndex.main(new String[] { directory.getPath() });
+    }
+
+    private static String getClassFileName(Class<?> type) {
+        return type.getName().replace('.', '/') + ".class";
+    }
+
+    private static byte[] readClassFile(Class<?> type) throws IOException {
+        InputStream in = type.getResourceAsStream("/" + getClassFileName(type));
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) >= 0;) {
+                bytes.write(buffer, 0, n);
+            }
+            return bytes.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void copyClassFile(Class<?> type, File directory) throws IOException {
+        File file = new File(directory, getClassFileName(type));
+        file.getParentFile().mkdirs();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(readClassFile(type));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Uses every kind of annotation element value and wide constants, which
+     * take two constant pool entries.
+     */
+    @Entity(name = "customer")
+    @Table(name = "CUSTOMER", uniqueConstraints = @UniqueConstraint(columnNames = { "NAME", "EMAIL" }))
+    @Access(AccessType.FIELD)
+    @EntityListeners(Listener.class)
+    static class Customer extends Base {
+
+        static final long SERIAL = 1234567890123L;
+
+        static final double RATE = 0.25;
+
+        @Id
+        @Column(length = 64, precision = 3)
+        String name;
+    }
+
+    @Embeddable
+    static class Address {
+
+        String street;
+    }
+
+    @MappedSuperclass
+    static class Base {
+
+        long version;
+    }
+
+    @Converter(autoApply = true)
+    static class YesNoConverter implements AttributeConverter<Boolean, String> {
+
+        public String convertToDatabaseColumn(Boolean attribute) {
+            return attribute ? "Y" : "N";
+        }
+
+        public Boolean convertToEntityAttribute(String dbData) {
+            return "Y".equals(dbData);
+        }
+    }
+
+    static class Listener {
+    }
+}
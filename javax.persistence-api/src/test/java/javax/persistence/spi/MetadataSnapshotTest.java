@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MetadataSnapshotTest {
+
+    private static final String PROVIDER = "com.example.Provider";
+
+    private File root;
+
+    private File otherRoot;
+
+    private Path file;
+
+    private URLClassLoader loader;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("persistence-unit").toFile();
+        otherRoot = Files.createTempDirectory("persistence-unit").toFile();
+        file = new File(root, "snapshot/unit.snapshot").toPath();
+        write(root, PersistenceXmlReader.PERSISTENCE_XML, "<persistence/>");
+        write(root, "com/example/Order.class", "order");
+        loader = newLoader(root);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        loader.close();
+        delete(root);
+        delete(otherRoot);
+    }
+
+    @Test
+    public void readsWhatWasWritten() throws IOException {
+        writeSnapshot("payload");
+
+        MetadataSnapshot snapshot = MetadataSnapshot.read(file);
+        assertEquals("unit", snapshot.getPersistenceUnitName());
+        assertEquals(PROVIDER, snapshot.getProviderClassName());
+        assertEquals("1", snapshot.getProviderVersion());
+        assertEquals(Arrays.asList(PersistenceXmlReader.PERSISTENCE_XML, "com/example/Order.class"), snapshot.getResourceNames());
+        assertEquals("payload", toString(snapshot.getPayload()));
+        // every call returns a buffer at position 0
+        assertEquals("payload", toString(snapshot.getPayload()));
+        assertTrue(snapshot.isValid(loader));
+    }
+
+    @Test
+    public void readsValidSnapshotFromProperties() throws IOException {
+        writeSnapshot("payload");
+
+        assertNotNull(MetadataSnapshot.read(properties(), "unit", PROVIDER, "1", loader));
+        assertNull(MetadataSnapshot.read(properties(), "other", PROVIDER, "1", loader));
+        assertNull(MetadataSnapshot.read(properties(), "unit", "com.example.Other", "1", loader));
+        assertNull(MetadataSnapshot.read(properties(), "unit", PROVIDER, "2", loader));
+        assertNull(MetadataSnapshot.read(null, "unit", PROVIDER, "1", loader));
+    }
+
+    @Test
+    public void ignoresMissingSnapshot() {
+        assertNull(MetadataSnapshot.read(properties(), "unit", PROVIDER, "1", loader));
+    }
+
+    @Test
+    public void changedResourceInvalidates() throws IOException {
+        writeSnapshot("payload");
+
+        write(root, "com/example/Order.class", "changed");
+        assertFalse(MetadataSnapshot.read(file).isValid(loader));
+        assertNull(MetadataSnapshot.read(properties(), "unit", PROVIDER, "1", loader));
+    }
+
+    @Test
+    public void removedResourceInvalidates() throws IOException {
+        writeSnapshot("payload");
+
+        new File(root, "com/example/Order.class").delete();
+        assertFalse(MetadataSnapshot.read(file).isValid(loader));
+    }
+
+    @Test
+    public void newIndexedClassInvalidates() throws IOException {
+        write(root, ManagedClassIndex.INDEX_RESOURCE, "index");
+        writeSnapshot("payload");
+        assertTrue(MetadataSnapshot.read(file).isValid(loader));
+
+        // the class is not listed, only the rebuilt index reveals it
+        write(root, "com/example/Invoice.class", "invoice");
+        write(root, ManagedClassIndex.INDEX_RESOURCE, "index with invoice");
+        assertFalse(MetadataSnapshot.read(file).isValid(loader));
+    }
+
+    @Test
+    public void newMappingFileInvalidates() throws IOException {
+        writeSnapshot("payload");
+
+        write(root, "META-INF/orm.xml", "<entity-mappings/>");
+        assertFalse(MetadataSnapshot.read(file).isValid(loader));
+    }
+
+    @Test
+    public void newRootInvalidates() throws IOException {
+        writeSnapshot("payload");
+
+        write(otherRoot, PersistenceXmlReader.PERSISTENCE_XML, "<persistence/>");
+        URLClassLoader otherLoader = newLoader(root, otherRoot);
+        try {
+            assertFalse(MetadataSnapshot.read(file).isValid(otherLoader));
+        } finally {
+            otherLoader.close();
+        }
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws IOException {
+        write(root, "snapshot/unit.snapshot", "not a snapshot");
+        try {
+            MetadataSnapshot.read(file);
+            fail();
+        } catch (IOException expected) {
+        }
+        assertNull(MetadataSnapshot.read(properties(), "unit", PROVIDER, "1", loader));
+    }
+
+    @Test
+    public void rejectsTruncatedFiles() throws IOException {
+        writeSnapshot("payload");
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 1));
+        try {
+            MetadataSnapshot.read(file);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void snapshotPathMustBeStringOrPath() {
+        assertEquals(file, MetadataSnapshot.getSnapshotPath(properties()));
+        assertEquals(file, MetadataSnapshot.getSnapshotPath(
+                Collections.singletonMap(MetadataSnapshot.SNAPSHOT_PROPERTY, file.toString())));
+        assertNull(MetadataSnapshot.getSnapshotPath(null));
+        try {
+            MetadataSnapshot.getSnapshotPath(Collections.singletonMap(MetadataSnapshot.SNAPSHOT_PROPERTY, 1));
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private void writeSnapshot(String payload) throws IOException {
+        List<String> resourceNames = Arrays.asList(PersistenceXmlReader.PERSISTENCE_XML, "com/example/Order.class");
+        MetadataSnapshot.write(file, "unit", PROVIDER, "1", resourceNames, loader,
+                ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Map<String, Path> properties() {
+        return Collections.singletonMap(MetadataSnapshot.SNAPSHOT_PROPERTY, file);
+    }
+
+    private static URLClassLoader newLoader(File... roots) throws IOException {
+        URL[] urls = new URL[roots.length];
+        for (int i = 0; i < roots.length; i++) {
+            urls[i] = roots[i].toURI().toURL();
+        }
+        return new URLClassLoader(urls, null);
+    }
+
+    private static String toString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void write(File root, String name, String content) throws IOException {
+        File file = new File(root, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
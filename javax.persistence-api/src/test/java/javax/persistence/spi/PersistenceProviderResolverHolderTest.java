@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.EntityManagerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PersistenceProviderResolverHolderTest {
+
+    private static final String SERVICES_RESOURCE = "META-INF/services/" + PersistenceProvider.class.getName();
+
+    private File servicesFile;
+
+    @Before
+    public void setUp() throws IOException {
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(null);
+        servicesFile = File.createTempFile("persistence-provider", ".txt");
+        Files.write(servicesFile.toPath(), TestPersistenceProvider.class.getName().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void tearDown() {
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(null);
+        servicesFile.delete();
+    }
+
+    /**
+     * Many threads asking for the providers of a few class loaders at the
+     * same time must cause exactly one ServiceLoader scan per loader.
+     */
+    @Test
+    public void scansEachClassLoaderOnce() throws Exception {
+        final PersistenceProviderResolver resolver = PersistenceProviderResolverHolder.getPersistenceProviderResolver();
+        final ScanCountingClassLoader[] loaders = new ScanCountingClassLoader[4];
+        for (int i = 0; i < loaders.length; i++) {
+            loaders[i] = new ScanCountingClassLoader(servicesFile.toURI().toURL());
+        }
+
+        int threads = 32;
+        final int iterations = 1000;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<PersistenceProvider>>> results = new ArrayList<Future<List<PersistenceProvider>>>();
+            for (int t = 0; t < threads; t++) {
+                final ScanCountingClassLoader loader = loaders[t % loaders.length];
+                results.add(executor.submit(new Callable<List<PersistenceProvider>>() {
+                    public List<PersistenceProvider> call() throws Exception {
+                        Thread.currentThread().setContextClassLoader(loader);
+                        start.await();
+                        List<PersistenceProvider> providers = null;
+                        for (int i = 0; i < iterations; i++) {
+                            List<PersistenceProvider> current = resolver.getPersistenceProviders();
+                            if (providers != null) {
+                                assertSame(providers, current);
+                            }
+                            providers = current;
+                        }
+                        return providers;
+                    }
+                }));
+            }
+            start.countDown();
+
+            List<List<PersistenceProvider>> providersPerLoader = new ArrayList<List<PersistenceProvider>>();
+            for (int t = 0; t < threads; t++) {
+                List<PersistenceProvider> providers = results.get(t).get();
+                assertEquals(1, providers.size());
+                if (t < loaders.length) {
+                    providersPerLoader.add(providers);
+                } else {
+                    assertSame(providersPerLoader.get(t % loaders.length), providers);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (ScanCountingClassLoader loader : loaders) {
+            assertEquals(1, loader.scans.get());
+        }
+    }
+
+    /**
+     * Once the providers of a class loader are cached, looking them up
+     * again must not allocate.
+     */
+    @Test
+    public void cachedLookupDoesNotAllocate() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported());
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        PersistenceProviderResolver resolver = PersistenceProviderResolverHolder.getPersistenceProviderResolver();
+        Thread thread = Thread.currentThread();
+        ClassLoader contextLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(new ScanCountingClassLoader(servicesFile.toURI().toURL()));
+        try {
+            int iterations = 100000;
+            // load the providers and let the JIT compile the lookup
+            for (int i = 0; i < 2 * iterations; i++) {
+                resolver.getPersistenceProviders();
+            }
+
+            long threadId = thread.getId();
+            long before = allocations.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < iterations; i++) {
+                resolver.getPersistenceProviders();
+            }
+            long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+            // even one small object per lookup would be several bytes per call
+            assertTrue("allocated " + allocated + " bytes in " + iterations + " lookups", allocated < iterations);
+        } finally {
+            thread.setContextClassLoader(contextLoader);
+        }
+    }
+
+    /**
+     * Serves the services file of the test provider and counts how often
+     * the ServiceLoader looks it up. Each lookup is slow, so that threads
+     * racing for an uncached loader overlap.
+     */
+    static class ScanCountingClassLoader extends ClassLoader {
+
+        final AtomicInteger scans = new AtomicInteger();
+
+        private final URL servicesFile;
+
+        ScanCountingClassLoader(URL servicesFile) {
+            super(PersistenceProviderResolverHolderTest.class.getClassLoader());
+            this.servicesFile = servicesFile;
+        }
+
+        @Override
+        public Enumeration<URL> getResources(String name) throws IOException {
+            if (SERVICES_RESOURCE.equals(name)) {
+                scans.incrementAndGet();
+                try {
+                    // a slow scan, like one over a large class path, widens the race
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Collections.enumeration(Collections.singletonList(servicesFile));
+            }
+            return super.getResources(name);
+        }
+    }
+
+    public static class TestPersistenceProvider implements PersistenceProvider {
+
+        @SuppressWarnings("rawtypes")
+        public EntityManagerFactory createEntityManagerFactory(String emName, Map map) {
+            return null;
+        }
+
+        @SuppressWarnings("rawtypes")
+        public EntityManagerFactory createContainerEntityManagerFactory(PersistenceUnitInfo info, Map map) {
+            return null;
+        }
+
+        @SuppressWarnings("rawtypes")
+        public void generateSchema(PersistenceUnitInfo info, Map map) {
+        }
+
+        @SuppressWarnings("rawtypes")
+        public boolean generateSchema(String persistenceUnitName, Map map) {
+            return false;
+        }
+
+        public ProviderUtil getProviderUtil() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Oracle Corporation. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.
+ * The Eclipse Public License is available at http://www.eclipse.org/legal/epl-v10.html
+ * and the Eclipse Distribution License is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ ******************************************************************************/
+package javax.persistence.spi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.persistence.PersistenceException;
+import javax.persistence.SharedCacheMode;
+import javax.persistence.ValidationMode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PersistenceXmlReaderTest {
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<persistence xmlns=\"http://xmlns.jcp.org/xml/ns/persistence\" version=\"2.2\">\n";
+
+    private File root;
+
+    private File persistenceXml;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("persistence-unit").toFile();
+        persistenceXml = new File(root, PersistenceXmlReader.PERSISTENCE_XML);
+        persistenceXml.getParentFile().mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        persistenceXml.delete();
+        persistenceXml.getParentFile().delete();
+        root.delete();
+    }
+
+    @Test
+    public void readsAllElements() throws IOException {
+        write(HEADER
+                + "  <persistence-unit name=\"first\" transaction-type=\"JTA\">\n"
+                + "    <description>a unit</description>\n"
+                + "    <provider> com.example.Provider </provider>\n"
+                + "    <jta-data-source>jdbc/first</jta-data-source>\n"
+                + "    <mapping-file>META-INF/orm.xml</mapping-file>\n"
+                + "    <jar-file>lib/entities.jar</jar-file>\n"
+                + "    <class>com.example.A</class>\n"
+                + "    <class>com.example.B</class>\n"
+                + "    <exclude-unlisted-classes/>\n"
+                + "    <shared-cache-mode>ENABLE_SELECTIVE</shared-cache-mode>\n"
+                + "    <validation-mode>NONE</validation-mode>\n"
+                + "    <properties>\n"
+                + "      <property name=\"key\" value=\"value\"/>\n"
+                + "      <property name=\"empty\"/>\n"
+                + "    </properties>\n"
+                + "  </persistence-unit>\n"
+                + "  <persistence-unit name=\"second\"/>\n"
+                + "</persistence>\n");
+        ClassLoader loader = getClass().getClassLoader();
+        List<PersistenceUnitInfo> units = PersistenceXmlReader.readPersistenceUnits(persistenceXml.toURI().toURL(), loader);
+        assertEquals(2, units.size());
+
+        PersistenceUnitInfo first = units.get(0);
+        assertEquals("first", first.getPersistenceUnitName());
+        assertEquals("com.example.Provider", first.getPersistenceProviderClassName());
+        assertEquals(PersistenceUnitTransactionType.JTA, first.getTransactionType());
+        assertEquals(Arrays.asList("META-INF/orm.xml"), first.getMappingFileNames());
+        assertEquals(Arrays.asList(new URL(root.toURI().toURL(), "lib/entities.jar")), first.getJarFileUrls());
+        assertEquals(root.toURI().toURL(), first.getPersistenceUnitRootUrl());
+        assertEquals(Arrays.asList("com.example.A", "com.example.B"), first.getManagedClassNames());
+        assertTrue(first.excludeUnlistedClasses());
+        assertEquals(SharedCacheMode.ENABLE_SELECTIVE, first.getSharedCacheMode());
+        assertEquals(ValidationMode.NONE, first.getValidationMode());
+        assertEquals("value", first.getProperties().getProperty("key"));
+        assertEquals("", first.getProperties().getProperty("empty"));
+        assertEquals("2.2", first.getPersistenceXMLSchemaVersion());
+        assertSame(loader, first.getClassLoader());
+
+        PersistenceUnitInfo second = units.get(1);
+        assertEquals("second", second.getPersistenceUnitName());
+        assertNull(second.getPersistenceProviderClassName());
+        assertEquals(PersistenceUnitTransactionType.RESOURCE_LOCAL, second.getTransactionType());
+        assertFalse(second.excludeUnlistedClasses());
+        assertEquals(SharedCacheMode.UNSPECIFIED, second.getSharedCacheMode());
+        assertEquals(ValidationMode.AUTO, second.getValidationMode());
+        assertEquals(Collections.emptyList(), second.getManagedClassNames());
+    }
+
+    @Test
+    public void findsFilesThroughTheClassLoader() throws IOException {
+        write(HEADER + "  <persistence-unit name=\"unit\"/>\n</persistence>\n");
+        URLClassLoader loader = new URLClassLoader(new URL[] { root.toURI().toURL() }, null);
+        try {
+            List<PersistenceUnitInfo> units = PersistenceXmlReader.readPersistenceUnits(loader);
+            assertEquals(1, units.size());
+            assertEquals("unit", units.get(0).getPersistenceUnitName());
+            assertSame(loader, units.get(0).getClassLoader());
+        } finally {
+            loader.close();
+        }
+    }
+
+    @Test
+    public void rejectsPropertiesWithoutName() throws IOException {
+        write(HEADER
+                + "  <persistence-unit name=\"unit\"><properties><property value=\"value\"/></properties></persistence-unit>\n"
+                + "</persistence>\n");
+        try {
+            PersistenceXmlReader.readPersistenceUnits(persistenceXml.toURI().toURL(), null);
+            fail();
+        } catch (PersistenceException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(persistenceXml.toURI().toURL().toExternalForm()));
+        }
+    }
+
+    @Test
+    public void rejectsUnknownEnumValues() throws IOException {
+        write(HEADER + "  <persistence-unit name=\"unit\" transaction-type=\"XA\"/>\n</persistence>\n");
+        try {
+            PersistenceXmlReader.readPersistenceUnits(persistenceXml.toURI().toURL(), null);
+            fail();
+        } catch (PersistenceException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void rereadsChangedFiles() throws IOException {
+        URL url = persistenceXml.toURI().toURL();
+        write(HEADER + "  <persistence-unit name=\"before\"/>\n</persistence>\n");
+        assertEquals("before", PersistenceXmlReader.readPersistenceUnits(url, null).get(0).getPersistenceUnitName());
+
+        long lastModified = persistenceXml.lastModified();
+        write(HEADER + "  <persistence-unit name=\"after\"/>\n</persistence>\n");
+        persistenceXml.setLastModified(lastModified + 2000);
+        assertEquals("after", PersistenceXmlReader.readPersistenceUnits(url, null).get(0).getPersistenceUnitName());
+    }
+
+    @Test
+    public void validatesAgainstTheSchemaOfTheVersion() throws IOException {
+        URL url = persistenceXml.toURI().toURL();
+        write(HEADER + "  <persistence-unit name=\"unit\"><class>com.example.A</class></persistence-unit>\n</persistence>\n");
+        PersistenceXmlReader.validate(url);
+
+        write(HEADER + "  <persistence-unit name=\"unit\"><unknown/></persistence-unit>\n</persistence>\n");
+        persistenceXml.setLastModified(persistenceXml.lastModified() + 2000);
+        try {
+            PersistenceXmlReader.validate(url);
+            fail();
+        } catch (PersistenceException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void rejectsUnsupportedVersions() throws IOException {
+        write("<persistence version=\"9.9\"><persistence-unit name=\"unit\"/></persistence>");
+        try {
+            PersistenceXmlReader.validate(persistenceXml.toURI().toURL());
+            fail();
+        } catch (PersistenceException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Unsupported version 9.9"));
+        }
+    }
+
+    private void write(String content) throws IOException {
+        Files.write(persistenceXml.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}